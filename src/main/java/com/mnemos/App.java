@@ -2,9 +2,15 @@ package com.mnemos;
 
 import com.mnemos.command.CommandItem;
 import com.mnemos.service.AuthService;
+import com.mnemos.service.LinkService;
+import com.mnemos.service.NoteAutoSaveService;
+import com.mnemos.service.ReminderService;
+import com.mnemos.service.SearchIndexService;
 import com.mnemos.service.TaskCleanupService;
+import com.mnemos.service.TaskService;
 import com.mnemos.ui.CommandPaletteController;
 import com.mnemos.ui.LoginController;
+import com.mnemos.ui.MainController;
 import com.mnemos.ui.SetupPasswordController;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -37,6 +43,7 @@ public class App extends Application {
     private boolean isWindowVisible = false;
     private Stage commandPaletteStage;
     private List<CommandItem> commands = new ArrayList<>();
+    private MainController mainController;
     private boolean isDragging = false;
     private TaskCleanupService taskCleanupService;
 
@@ -50,6 +57,13 @@ public class App extends Application {
 
         try {
             com.mnemos.util.DatabaseManager.initialize();
+            new LinkService().loadGraph();
+            new TaskService().loadDependencyGraph();
+            // Starts the tray icon and the reminder loads, the first one right away
+            ReminderService.getInstance();
+            taskCleanupService = TaskCleanupService.getInstance();
+            taskCleanupService.start();
+            SearchIndexService.getInstance().start();
 
             AuthService authService = new AuthService();
             if (!authenticateUser(authService)) {
@@ -62,6 +76,7 @@ public class App extends Application {
 
         FXMLLoader loader = new FXMLLoader(App.class.getResource("/com/mnemos/ui/MainView.fxml"));
         Parent root = loader.load();
+        mainController = loader.getController();
         Scene scene = new Scene(root);
         scene.setFill(javafx.scene.paint.Color.TRANSPARENT);
 
@@ -166,6 +181,9 @@ public class App extends Application {
 
             MenuItem exitItem = new MenuItem("Exit");
             exitItem.addActionListener(e -> {
+                // System.exit below skips stop(), so save pending edits here
+                NoteAutoSaveService.getInstance().flushAll();
+                SearchIndexService.getInstance().saveSnapshot();
                 Platform.exit();
                 System.exit(0);
             });
@@ -211,24 +229,22 @@ public class App extends Application {
 
     private void hideWindow() {
         if (isWindowVisible) {
+            NoteAutoSaveService.getInstance().flushAll();
             primaryStage.hide();
             isWindowVisible = false;
         }
     }
 
     private void initializeCommands() {
-        commands.add(new CommandItem("New Note", "Create a new note", "Actions", "📝", () -> {
-        }));
-        commands.add(new CommandItem("New Task", "Create a new task", "Actions", "✓", () -> {
-        }));
-        commands.add(new CommandItem("Add File", "Add a file reference", "Actions", "📎", () -> {
-        }));
-        commands.add(new CommandItem("Go to Notes", "Navigate to Notes view", "Navigation", "📄", () -> {
-        }));
-        commands.add(new CommandItem("Go to Tasks", "Navigate to Tasks view", "Navigation", "✓", () -> {
-        }));
-        commands.add(new CommandItem("Go to Files", "Navigate to Files view", "Navigation", "📁", () -> {
-        }));
+        commands.add(new CommandItem("New Note", "Create a new note", "Actions", "📝", mainController::newNote));
+        commands.add(new CommandItem("New Task", "Create a new task", "Actions", "✓", mainController::newTask));
+        commands.add(new CommandItem("Add File", "Add a file reference", "Actions", "📎", mainController::addFile));
+        commands.add(new CommandItem("Go to Notes", "Navigate to Notes view", "Navigation", "📄",
+                mainController::showNotes));
+        commands.add(new CommandItem("Go to Tasks", "Navigate to Tasks view", "Navigation", "✓",
+                mainController::showTasks));
+        commands.add(new CommandItem("Go to Files", "Navigate to Files view", "Navigation", "📁",
+                mainController::showFiles));
     }
 
     private void showCommandPalette() {
@@ -254,6 +270,7 @@ public class App extends Application {
             commandPaletteStage.setAlwaysOnTop(true);
 
             controller.setStage(commandPaletteStage);
+            controller.setItemOpener(mainController::open);
             controller.setCommands(commands);
             controller.setOnCloseCallback(() -> commandPaletteStage = null);
 
@@ -334,9 +351,12 @@ public class App extends Application {
 
     @Override
     public void stop() throws Exception {
+        NoteAutoSaveService.getInstance().flushAll();
+        SearchIndexService.getInstance().saveSnapshot();
         if (taskCleanupService != null) {
             taskCleanupService.shutdown();
         }
+        com.mnemos.util.DatabaseManager.shutdown();
         super.stop();
     }
 
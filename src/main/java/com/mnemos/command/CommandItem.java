@@ -1,11 +1,17 @@
 package com.mnemos.command;
 
+import com.mnemos.util.InvertedIndex;
+
 public class CommandItem {
     private final String name;
     private final String description;
     private final String category;
     private final Command command;
     private final String icon;
+    // Folded once here rather than on every keystroke; matched by CommandMatcher
+    final String foldedName;
+    final String foldedDescription;
+    final String foldedCategory;
 
     public CommandItem(String name, String description, String category, String icon, Command command) {
         this.name = name;
@@ -13,6 +19,9 @@ public class CommandItem {
         this.category = category;
         this.icon = icon;
         this.command = command;
+        this.foldedName = InvertedIndex.fold(name);
+        this.foldedDescription = InvertedIndex.fold(description);
+        this.foldedCategory = InvertedIndex.fold(category);
     }
 
     public String getName() {
@@ -38,13 +47,4 @@ public class CommandItem {
     public String getDisplayText() {
         return icon + "  " + name;
     }
-
-    public boolean matches(String query) {
-        if (query == null || query.isEmpty())
-            return true;
-        String lowerQuery = query.toLowerCase();
-        return name.toLowerCase().contains(lowerQuery) ||
-                description.toLowerCase().contains(lowerQuery) ||
-                category.toLowerCase().contains(lowerQuery);
-    }
 }
@@ -0,0 +1,163 @@
+package com.mnemos.command;
+
+import com.mnemos.util.InvertedIndex;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Ranks commands against what is typed in the palette. The query is
+ * matched as a subsequence of the command name, scored so that characters
+ * at word starts and runs of consecutive characters count most: "gtn" finds
+ * "Go to Notes" and "notes" ranks it above "New Note". Descriptions and
+ * categories still match as plain substrings, ranked below name matches.
+ */
+public class CommandMatcher {
+    private static final int MATCH = 16;
+    private static final int WORD_START = 24;
+    private static final int FIRST_CHAR = 8;
+    private static final int CONSECUTIVE = 12;
+    private static final int GAP = 1;
+    private static final int NO_MATCH = Integer.MIN_VALUE;
+
+    // Worst at the head, so the heap drops it first; ties go to the later command
+    private static final Comparator<Ranked> WORST_FIRST = Comparator.comparingInt(Ranked::score)
+            .thenComparing(Comparator.comparingInt(Ranked::order).reversed());
+
+    private final List<CommandItem> items;
+    private final boolean[][] wordStarts;
+
+    private record Ranked(int score, int order, CommandItem item) {
+    }
+
+    public CommandMatcher(List<CommandItem> commands) {
+        this.items = List.copyOf(commands);
+        this.wordStarts = new boolean[items.size()][];
+        for (int i = 0; i < items.size(); i++) {
+            wordStarts[i] = wordStarts(items.get(i).foldedName);
+        }
+    }
+
+    /**
+     * The best {@code limit} commands for the query, best first. A blank
+     * query keeps the original order.
+     */
+    public List<CommandItem> top(String query, int limit) {
+        String folded = query == null ? "" : InvertedIndex.fold(query.strip());
+        if (folded.isEmpty() || limit <= 0) {
+            return items.subList(0, Math.max(0, Math.min(limit, items.size())));
+        }
+        String letters = folded.replaceAll("\\s+", "");
+
+        // Bounded heap: O(n log k) instead of sorting every match
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        for (int i = 0; i < items.size(); i++) {
+            int score = score(items.get(i), wordStarts[i], letters, folded);
+            if (score == NO_MATCH) {
+                continue;
+            }
+            Ranked ranked = new Ranked(score, i, items.get(i));
+            if (heap.size() < limit) {
+                heap.add(ranked);
+            } else if (WORST_FIRST.compare(ranked, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+
+        CommandItem[] best = new CommandItem[heap.size()];
+        for (int i = best.length - 1; i >= 0; i--) {
+            best[i] = heap.poll().item();
+        }
+        return Arrays.asList(best);
+    }
+
+    private static int score(CommandItem item, boolean[] nameStarts, String letters, String phrase) {
+        int score = fuzzyScore(letters, item.foldedName, nameStarts);
+        if (score != NO_MATCH) {
+            // Any name match beats a description or category match
+            return score + MATCH * phrase.length();
+        }
+        return Math.max(substringScore(phrase, item.foldedDescription),
+                substringScore(phrase, item.foldedCategory));
+    }
+
+    /**
+     * Best alignment of the query as a subsequence of the text, or
+     * NO_MATCH. One row per query character: {@code row[j]} is the best
+     * score with that character matched at position j.
+     */
+    static int fuzzyScore(String query, String text, boolean[] wordStarts) {
+        int m = query.length();
+        int n = text.length();
+        if (m == 0) {
+            return 0;
+        }
+        if (m > n) {
+            return NO_MATCH;
+        }
+        int[] previous = new int[n];
+        int[] current = new int[n];
+        for (int j = 0; j < n; j++) {
+            previous[j] = text.charAt(j) == query.charAt(0) ? bonus(j, wordStarts) : NO_MATCH;
+        }
+        for (int i = 1; i < m; i++) {
+            char c = query.charAt(i);
+            // Best previous-row score ending two or more chars back, less a penalty per skipped char
+            int gapped = NO_MATCH;
+            Arrays.fill(current, 0, i, NO_MATCH);
+            for (int j = i; j < n; j++) {
+                if (j >= 2) {
+                    gapped = Math.max(gapped == NO_MATCH ? NO_MATCH : gapped - GAP,
+                            previous[j - 2] == NO_MATCH ? NO_MATCH : previous[j - 2] - GAP);
+                }
+                if (text.charAt(j) != c) {
+                    current[j] = NO_MATCH;
+                    continue;
+                }
+                int adjacent = previous[j - 1] == NO_MATCH ? NO_MATCH : previous[j - 1] + CONSECUTIVE;
+                int best = Math.max(adjacent, gapped);
+                current[j] = best == NO_MATCH ? NO_MATCH : best + bonus(j, wordStarts);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = NO_MATCH;
+        for (int score : previous) {
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    private static int bonus(int position, boolean[] wordStarts) {
+        int bonus = MATCH;
+        if (wordStarts[position]) {
+            bonus += WORD_START;
+        }
+        if (position == 0) {
+            bonus += FIRST_CHAR;
+        }
+        return bonus;
+    }
+
+    private static int substringScore(String phrase, String text) {
+        int at = text.indexOf(phrase);
+        if (at < 0) {
+            return NO_MATCH;
+        }
+        boolean wordStart = at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1));
+        return phrase.length() * MATCH / 2 + (wordStart ? WORD_START / 2 : 0);
+    }
+
+    private static boolean[] wordStarts(String text) {
+        boolean[] starts = new boolean[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            starts[i] = Character.isLetterOrDigit(text.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+        }
+        return starts;
+    }
+}
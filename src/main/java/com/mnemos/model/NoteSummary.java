@@ -0,0 +1,61 @@
+package com.mnemos.model;
+
+import java.time.Instant;
+
+/**
+ * A note as shown in lists: title, last change and the start of its text,
+ * without the body.
+ */
+public class NoteSummary {
+    private static final int PREVIEW_LENGTH = 80;
+
+    private final Long id;
+    private final String title;
+    private final String preview;
+    private final Instant updatedAt;
+
+    public NoteSummary(Long id, String title, String preview, Instant updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.preview = preview;
+        this.updatedAt = updatedAt;
+    }
+
+    public static NoteSummary of(Note note) {
+        return new NoteSummary(note.getId(), note.getTitle(), previewOf(note.getContent()), note.getUpdatedAt());
+    }
+
+    /**
+     * The first {@value #PREVIEW_LENGTH} chars of the text on one line, as
+     * stored in notes.preview.
+     */
+    public static String previewOf(String content) {
+        if (content == null) {
+            return "";
+        }
+        String preview = content;
+        if (content.length() > PREVIEW_LENGTH) {
+            int end = Character.isHighSurrogate(content.charAt(PREVIEW_LENGTH - 1))
+                    ? PREVIEW_LENGTH - 1
+                    : PREVIEW_LENGTH;
+            preview = content.substring(0, end) + "...";
+        }
+        return preview.replace("\r", "").replace('\n', ' ');
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getPreview() {
+        return preview;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -5,42 +5,89 @@ import com.mnemos.util.DatabaseManager;
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class FileRepository implements GenericRepository<FileReference, Long> {
     private static final Logger logger = LoggerFactory.getLogger(FileRepository.class);
 
+    // Hot queries; QueryPlanTest checks that each one is index-backed
+    static final String SELECT_ALL = "SELECT * FROM files ORDER BY added_at DESC";
+    static final String SELECT_FIRST_PAGE = "SELECT * FROM files ORDER BY added_at DESC, id DESC LIMIT ?";
+    static final String SELECT_PAGE_AFTER = """
+            SELECT * FROM files
+            WHERE (added_at, id) < (?, ?)
+            ORDER BY added_at DESC, id DESC LIMIT ?""";
+    static final String SELECT_BY_NAME = """
+            SELECT * FROM files WHERE name LIKE ? ESCAPE '\\' AND id IS NOT ?
+            ORDER BY added_at DESC, id DESC LIMIT ?""";
+
     @Override
     public FileReference save(FileReference file) {
         String sql = "INSERT INTO files(name, path, type, added_at) VALUES(?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, file.getName());
-            pstmt.setString(2, file.getPath());
-            pstmt.setString(3, file.getType());
-            long now = Instant.now().toEpochMilli();
-            pstmt.setLong(4, now);
-            file.setAddedAt(Instant.ofEpochMilli(now));
-
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        file.setId(generatedKeys.getLong(1));
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                    pstmt.setString(1, file.getName());
+                    pstmt.setString(2, file.getPath());
+                    pstmt.setString(3, file.getType());
+                    long now = Instant.now().toEpochMilli();
+                    pstmt.setLong(4, now);
+                    file.setAddedAt(Instant.ofEpochMilli(now));
+
+                    int affectedRows = pstmt.executeUpdate();
+                    if (affectedRows > 0) {
+                        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                            if (generatedKeys.next()) {
+                                file.setId(generatedKeys.getLong(1));
+                            }
+                        }
                     }
                 }
-            }
+            });
         } catch (SQLException e) {
             logger.error("Error saving file reference", e);
         }
         return file;
     }
 
+    @Override
+    public List<FileReference> saveAll(Collection<FileReference> files) {
+        String sql = "INSERT INTO files(name, path, type, added_at) VALUES(?, ?, ?, ?)";
+
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    long now = Instant.now().toEpochMilli();
+                    for (FileReference file : files) {
+                        pstmt.setString(1, file.getName());
+                        pstmt.setString(2, file.getPath());
+                        pstmt.setString(3, file.getType());
+                        pstmt.setLong(4, now);
+                        pstmt.executeUpdate();
+                        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                            if (generatedKeys.next()) {
+                                file.setId(generatedKeys.getLong(1));
+                            }
+                        }
+                        file.setAddedAt(Instant.ofEpochMilli(now));
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            // Rolled back, so ids handed out inside the transaction do not exist
+            files.forEach(file -> file.setId(null));
+            logger.error("Error saving file references", e);
+        }
+        return new ArrayList<>(files);
+    }
+
     @Override
     public Optional<FileReference> findById(Long id) {
         String sql = "SELECT * FROM files WHERE id = ?";
@@ -60,10 +107,9 @@ public class FileRepository implements GenericRepository<FileReference, Long> {
     @Override
     public List<FileReference> findAll() {
         List<FileReference> files = new ArrayList<>();
-        String sql = "SELECT * FROM files ORDER BY added_at DESC";
         try (Connection conn = DatabaseManager.connect();
                 Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+                ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
             while (rs.next())
                 files.add(mapRow(rs));
         } catch (SQLException e) {
@@ -73,17 +119,87 @@ public class FileRepository implements GenericRepository<FileReference, Long> {
     }
 
     @Override
-    public void deleteById(Long id) {
-        String sql = "DELETE FROM files WHERE id = ?";
+    public List<FileReference> findPage(FileReference after, int limit) {
+        List<FileReference> files = new ArrayList<>();
+        String sql = after == null ? SELECT_FIRST_PAGE : SELECT_PAGE_AFTER;
+
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+            int index = 1;
+            if (after != null) {
+                pstmt.setLong(index++, after.getAddedAt().toEpochMilli());
+                pstmt.setLong(index++, after.getId());
+            }
+            pstmt.setInt(index, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next())
+                files.add(mapRow(rs));
+        } catch (SQLException e) {
+            logger.error("Error finding page of files", e);
+        }
+        return files;
+    }
+
+    /**
+     * Files whose name contains the text, most recently added first. Like
+     * SQL LIKE, only ASCII letters match regardless of case.
+     *
+     * @param excludeId a file to leave out, or null
+     */
+    public List<FileReference> findByNameContaining(String text, Long excludeId, int limit) {
+        List<FileReference> files = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_BY_NAME)) {
+            pstmt.setString(1, LikePattern.containing(text));
+            pstmt.setObject(2, excludeId);
+            pstmt.setInt(3, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next())
+                files.add(mapRow(rs));
+        } catch (SQLException e) {
+            logger.error("Error finding files by name", e);
+        }
+        return files;
+    }
+
+    @Override
+    public Stream<FileReference> stream() {
+        return ResultSetStream.open(SELECT_ALL, this::mapRow);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        String sql = "DELETE FROM files WHERE id = ?";
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, id);
+                    pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             logger.error("Error deleting file", e);
         }
     }
 
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        String sql = "DELETE FROM files WHERE id = ?";
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Long id : ids) {
+                        pstmt.setLong(1, id);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("Error deleting files", e);
+        }
+    }
+
     private FileReference mapRow(ResultSet rs) throws SQLException {
         return new FileReference(
                 rs.getLong("id"),
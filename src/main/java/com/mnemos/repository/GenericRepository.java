@@ -1,14 +1,48 @@
 package com.mnemos.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface GenericRepository<T, ID> {
     T save(T entity);
 
+    /**
+     * Insert or update all entities in one transaction. New entities get
+     * their generated ids. Nothing is written if any row fails.
+     */
+    List<T> saveAll(Collection<T> entities);
+
     Optional<T> findById(ID id);
 
     List<T> findAll();
 
+    /**
+     * Keyset page in {@link #findAll()} order: up to {@code limit} entities
+     * after {@code after}, the last one of the previous page, or from the
+     * start when it is null. The cursor is that entity's sort key as loaded,
+     * so the page is right even if it was edited or deleted since.
+     */
+    List<T> findPage(T after, int limit);
+
+    /**
+     * All entities in {@link #findAll()} order, mapped as the stream is
+     * consumed. Holds a database connection until closed.
+     */
+    Stream<T> stream();
+
+    default void forEach(Consumer<? super T> action) {
+        try (Stream<T> entities = stream()) {
+            entities.forEach(action);
+        }
+    }
+
     void deleteById(ID id);
+
+    /**
+     * Delete all given ids as one batch in one transaction.
+     */
+    void deleteAllById(Collection<ID> ids);
 }
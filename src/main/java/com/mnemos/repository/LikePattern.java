@@ -0,0 +1,26 @@
+package com.mnemos.repository;
+
+/**
+ * Builds LIKE patterns from user input. Use with {@code ESCAPE '\'} so
+ * that '%' and '_' typed by the user match literally.
+ */
+final class LikePattern {
+
+    private LikePattern() {
+    }
+
+    /**
+     * Pattern matching values that contain the text anywhere.
+     */
+    static String containing(String text) {
+        StringBuilder pattern = new StringBuilder(text.length() + 2).append('%');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -2,35 +2,84 @@ package com.mnemos.repository;
 
 import com.mnemos.model.Link;
 import com.mnemos.model.Link.ItemType;
+import com.mnemos.model.LinkedItem;
 import com.mnemos.util.DatabaseManager;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class LinkRepository {
 
+    // Hot queries; QueryPlanTest checks that each one is index-backed
+
+    // Two index lookups instead of an OR across both sides, which scans the table.
+    // Self-links match both branches, so the second one skips them.
+    static final String SELECT_LINKS_FOR_ITEM = """
+            SELECT * FROM links
+            WHERE source_type = ? AND source_id = ?
+            UNION ALL
+            SELECT * FROM links
+            WHERE target_type = ? AND target_id = ?
+              AND NOT (source_type = target_type AND source_id = target_id)
+            """;
+
+    // The unary + keeps the type filter from being pushed into item_links as
+    // an indexable source_type term, which would turn the target-side lookup
+    // into a range scan over every link of that source type.
+    static final String SELECT_LINKED_ITEMS = """
+            WITH item_links AS (
+                SELECT id AS link_id, target_type AS other_type, target_id AS other_id FROM links
+                WHERE source_type = ?1 AND source_id = ?2
+                UNION ALL
+                SELECT id, source_type, source_id FROM links
+                WHERE target_type = ?1 AND target_id = ?2
+                  AND NOT (source_type = target_type AND source_id = target_id)
+            )
+            SELECT l.link_id, l.other_type, l.other_id, t.title, t.status AS preview
+            FROM item_links l JOIN tasks t ON t.id = l.other_id
+            WHERE +l.other_type = 'TASK'
+            UNION ALL
+            SELECT l.link_id, l.other_type, l.other_id, n.title, n.preview
+            FROM item_links l JOIN notes n ON n.id = l.other_id
+            WHERE +l.other_type = 'NOTE'
+            UNION ALL
+            SELECT l.link_id, l.other_type, l.other_id, f.name, f.type
+            FROM item_links l JOIN files f ON f.id = l.other_id
+            WHERE +l.other_type = 'FILE'
+            """;
+
+    static final String COUNT_LINKS_BETWEEN = """
+            SELECT COUNT(*) FROM links
+            WHERE (source_type = ? AND source_id = ? AND target_type = ? AND target_id = ?)
+               OR (source_type = ? AND source_id = ? AND target_type = ? AND target_id = ?)
+            """;
+
     public Link save(Link link) {
         String sql = """
                 INSERT OR IGNORE INTO links (source_type, source_id, target_type, target_id, created_at)
                 VALUES (?, ?, ?, ?, ?)
                 """;
 
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, link.getSourceType().name());
-            pstmt.setLong(2, link.getSourceId());
-            pstmt.setString(3, link.getTargetType().name());
-            pstmt.setLong(4, link.getTargetId());
-            pstmt.setLong(5, link.getCreatedAt() != null ? link.getCreatedAt() : System.currentTimeMillis());
+                    pstmt.setString(1, link.getSourceType().name());
+                    pstmt.setLong(2, link.getSourceId());
+                    pstmt.setString(3, link.getTargetType().name());
+                    pstmt.setLong(4, link.getTargetId());
+                    pstmt.setLong(5, link.getCreatedAt() != null ? link.getCreatedAt() : System.currentTimeMillis());
 
-            pstmt.executeUpdate();
+                    pstmt.executeUpdate();
 
-            ResultSet rs = pstmt.getGeneratedKeys();
-            if (rs.next()) {
-                link.setId(rs.getLong(1));
-            }
+                    ResultSet rs = pstmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        link.setId(rs.getLong(1));
+                    }
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -38,29 +87,122 @@ public class LinkRepository {
         return link;
     }
 
-    public void delete(Long linkId) {
+    /**
+     * Insert all links in one transaction, skipping any pair that is already
+     * linked in either direction. Only links actually inserted get an id.
+     */
+    public List<Link> saveAll(Collection<Link> links) {
+        String sql = """
+                INSERT OR IGNORE INTO links (source_type, source_id, target_type, target_id, created_at)
+                SELECT ?, ?, ?, ?, ?
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM links
+                    WHERE source_type = ? AND source_id = ? AND target_type = ? AND target_id = ?)
+                """;
+        List<Link> inserted = new ArrayList<>();
+
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    for (Link link : links) {
+                        pstmt.setString(1, link.getSourceType().name());
+                        pstmt.setLong(2, link.getSourceId());
+                        pstmt.setString(3, link.getTargetType().name());
+                        pstmt.setLong(4, link.getTargetId());
+                        pstmt.setLong(5, link.getCreatedAt() != null ? link.getCreatedAt() : System.currentTimeMillis());
+                        // Reverse direction
+                        pstmt.setString(6, link.getTargetType().name());
+                        pstmt.setLong(7, link.getTargetId());
+                        pstmt.setString(8, link.getSourceType().name());
+                        pstmt.setLong(9, link.getSourceId());
+
+                        // An ignored insert leaves the previous rowid in getGeneratedKeys
+                        if (pstmt.executeUpdate() == 0) {
+                            continue;
+                        }
+                        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                            if (rs.next()) {
+                                link.setId(rs.getLong(1));
+                                inserted.add(link);
+                            }
+                        }
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            inserted.forEach(link -> link.setId(null));
+            inserted.clear();
+            e.printStackTrace();
+        }
+
+        return inserted;
+    }
+
+    /**
+     * @return false if the delete failed
+     */
+    public boolean delete(Long linkId) {
         String sql = "DELETE FROM links WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, linkId);
+                    pstmt.executeUpdate();
+                }
+            });
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @return false if the transaction failed and nothing was deleted
+     */
+    public boolean deleteAll(Collection<Long> linkIds) {
+        String sql = "DELETE FROM links WHERE id = ?";
+
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Long linkId : linkIds) {
+                        pstmt.setLong(1, linkId);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            });
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public List<Link> findAll() {
+        List<Link> links = new ArrayList<>();
+        String sql = "SELECT * FROM links";
 
-            pstmt.setLong(1, linkId);
-            pstmt.executeUpdate();
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                links.add(mapRow(rs));
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+
+        return links;
     }
 
     public List<Link> getLinksForItem(ItemType type, Long id) {
         List<Link> links = new ArrayList<>();
-        String sql = """
-                SELECT * FROM links
-                WHERE (source_type = ? AND source_id = ?)
-                   OR (target_type = ? AND target_id = ?)
-                """;
 
         try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_LINKS_FOR_ITEM)) {
 
             pstmt.setString(1, type.name());
             pstmt.setLong(2, id);
@@ -78,15 +220,39 @@ public class LinkRepository {
         return links;
     }
 
-    public boolean isLinked(ItemType sourceType, Long sourceId, ItemType targetType, Long targetId) {
-        String sql = """
-                SELECT COUNT(*) FROM links
-                WHERE (source_type = ? AND source_id = ? AND target_type = ? AND target_id = ?)
-                   OR (source_type = ? AND source_id = ? AND target_type = ? AND target_id = ?)
-                """;
+    /**
+     * Everything linked to the given item, resolved in one query. Results are
+     * grouped by type; notes show their stored 80-character preview, so note
+     * bodies are never read. Links to deleted items are skipped.
+     */
+    public List<LinkedItem> findLinkedItems(ItemType type, Long id) {
+        List<LinkedItem> items = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_LINKED_ITEMS)) {
+
+            pstmt.setString(1, type.name());
+            pstmt.setLong(2, id);
+
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                items.add(new LinkedItem(
+                        ItemType.valueOf(rs.getString("other_type")),
+                        rs.getLong("other_id"),
+                        rs.getString("title"),
+                        rs.getString("preview"),
+                        rs.getLong("link_id")));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return items;
+    }
+
+    public boolean isLinked(ItemType sourceType, Long sourceId, ItemType targetType, Long targetId) {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(COUNT_LINKS_BETWEEN)) {
 
             pstmt.setString(1, sourceType.name());
             pstmt.setLong(2, sourceId);
@@ -1,72 +1,223 @@
 package com.mnemos.repository;
 
+import com.mnemos.model.Link.ItemType;
 import com.mnemos.model.Note;
+import com.mnemos.model.NoteSummary;
 import com.mnemos.util.DatabaseManager;
+import com.mnemos.util.TextDelta;
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Notes with a revision log. Each save of an existing note appends a row to
+ * note_revisions: usually a {@link TextDelta} against the previous revision,
+ * and every {@value #SNAPSHOT_INTERVAL} revisions a full snapshot, which is
+ * also copied into notes.content. Between snapshots a save writes only the
+ * row's title, updated_at and preview, so an autosave writes about as much
+ * as was typed and lists stay current without reading revisions; reads of
+ * the full text apply the deltas after notes.revision on the fly.
+ * {@link #compact(long)} folds them into a snapshot early, e.g. when the
+ * editor closes. The note's search_index entry is rewritten with each
+ * snapshot; in between, the in-memory index in SearchIndexService has the
+ * newest text.
+ */
 public class NoteRepository implements GenericRepository<Note, Long> {
     private static final Logger logger = LoggerFactory.getLogger(NoteRepository.class);
 
-    @Override
-    public Note save(Note note) {
-        String sql;
-        boolean isNew = (note.getId() == null);
+    // Most deltas replayed to rebuild any revision
+    private static final int SNAPSHOT_INTERVAL = 32;
 
-        if (isNew) {
-            sql = "INSERT INTO notes(title, content, created_at, updated_at) VALUES(?, ?, ?, ?)";
-        } else {
-            sql = "UPDATE notes SET title = ?, content = ?, updated_at = ? WHERE id = ?";
-        }
+    private static final String SELECT_NOTES = """
+            SELECT n.*, EXISTS(SELECT 1 FROM note_revisions r
+                               WHERE r.note_id = n.id AND r.revision > n.revision) AS pending
+            FROM notes n""";
 
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    private static final String SELECT_SUMMARIES = "SELECT n.id, n.title, n.updated_at, n.preview FROM notes n";
 
-            pstmt.setString(1, note.getTitle());
-            pstmt.setString(2, note.getContent());
+    // Hot queries; QueryPlanTest checks that each one is index-backed
+    private static final String PAGE_AFTER = """
 
-            if (isNew) {
-                long now = Instant.now().toEpochMilli();
-                pstmt.setLong(3, now);
-                pstmt.setLong(4, now);
-                note.setCreatedAt(Instant.ofEpochMilli(now));
-                note.setUpdatedAt(Instant.ofEpochMilli(now));
-            } else {
-                long now = Instant.now().toEpochMilli();
-                pstmt.setLong(3, now);
-                pstmt.setLong(4, note.getId());
-                note.setUpdatedAt(Instant.ofEpochMilli(now));
-            }
+            WHERE (n.updated_at, n.id) < (?, ?)
+            ORDER BY n.updated_at DESC, n.id DESC LIMIT ?""";
+    static final String SELECT_ALL = SELECT_NOTES + " ORDER BY n.updated_at DESC";
+    static final String SELECT_FIRST_PAGE = SELECT_NOTES + " ORDER BY n.updated_at DESC, n.id DESC LIMIT ?";
+    static final String SELECT_PAGE_AFTER = SELECT_NOTES + PAGE_AFTER;
+    static final String SELECT_FIRST_SUMMARY_PAGE = SELECT_SUMMARIES + " ORDER BY n.updated_at DESC, n.id DESC LIMIT ?";
+    static final String SELECT_SUMMARY_PAGE_AFTER = SELECT_SUMMARIES + PAGE_AFTER;
+    static final String SELECT_SUMMARIES_BY_TITLE = SELECT_SUMMARIES + """
 
-            int affectedRows = pstmt.executeUpdate();
+            WHERE n.title LIKE ? ESCAPE '\\' AND n.id IS NOT ?
+            ORDER BY n.updated_at DESC, n.id DESC LIMIT ?""";
+    static final String SELECT_REVISIONS = """
+            SELECT revision, snapshot, title, created_at FROM note_revisions WHERE note_id = ?
+            ORDER BY revision DESC""";
+    static final String SELECT_CONTENT_AT = """
+            SELECT snapshot, body FROM note_revisions
+            WHERE note_id = ?1 AND revision <= ?2 AND revision >= (
+                SELECT MAX(revision) FROM note_revisions
+                WHERE note_id = ?1 AND revision <= ?2 AND snapshot = 1)
+            ORDER BY revision""";
+    static final String SELECT_PENDING_REVISIONS = """
+            SELECT snapshot, body FROM note_revisions
+            WHERE note_id = ? AND revision > ? ORDER BY revision""";
 
-            if (affectedRows == 0) {
-                throw new SQLException("Creating/Updating note failed, no rows affected.");
-            }
+    public record Revision(int revision, String title, Instant createdAt, boolean snapshot) {
+    }
+
+    private record Head(Note note, int snapshotRevision, int revision) {
+    }
+
+    @Override
+    public Note save(Note note) {
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                long now = Instant.now().toEpochMilli();
+                if (note.getId() == null) {
+                    insert(conn, note, now);
+                    return;
+                }
+                Long updatedAt = appendRevision(conn, note.getId(), note.getTitle(), note.getContent(), now);
+                if (updatedAt == null) {
+                    throw new SQLException("Updating note failed, no rows affected.");
+                }
+                note.setUpdatedAt(Instant.ofEpochMilli(updatedAt));
+            });
+        } catch (SQLException e) {
+            logger.error("Error saving note", e);
+        }
+        return note;
+    }
 
-            if (isNew) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        note.setId(generatedKeys.getLong(1));
+    @Override
+    public List<Note> saveAll(Collection<Note> notes) {
+        List<Note> inserted = notes.stream().filter(note -> note.getId() == null).toList();
+
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                long now = Instant.now().toEpochMilli();
+                for (Note note : notes) {
+                    if (note.getId() == null) {
+                        insert(conn, note, now);
                     } else {
-                        throw new SQLException("Creating note failed, no ID obtained.");
+                        Long updatedAt = appendRevision(conn, note.getId(), note.getTitle(), note.getContent(), now);
+                        if (updatedAt != null) {
+                            note.setUpdatedAt(Instant.ofEpochMilli(updatedAt));
+                        }
                     }
                 }
+            });
+        } catch (SQLException e) {
+            // Rolled back, so ids handed out inside the transaction do not exist
+            inserted.forEach(note -> note.setId(null));
+            logger.error("Error saving notes", e);
+        }
+        return new ArrayList<>(notes);
+    }
+
+    /**
+     * Record a new revision of an existing note's title and content.
+     *
+     * @return the new updated_at, or null if the write failed or the note no longer exists
+     */
+    public Instant update(long id, String title, String content) {
+        long now = Instant.now().toEpochMilli();
+        try {
+            Long updatedAt = DatabaseManager.writeInTransaction(conn -> {
+                return appendRevision(conn, id, title, content, now);
+            });
+            return updatedAt != null ? Instant.ofEpochMilli(updatedAt) : null;
+        } catch (SQLException e) {
+            logger.error("Error updating note", e);
+            return null;
+        }
+    }
+
+    /**
+     * Turn the note's latest revision into a snapshot if it is a delta, so
+     * the notes row is current again.
+     *
+     * @return false if there was nothing to fold or the write failed
+     */
+    public boolean compact(long id) {
+        try {
+            return DatabaseManager.writeInTransaction(conn -> {
+                Head head = loadHead(conn, id);
+                if (head == null || head.revision() == head.snapshotRevision()) {
+                    return false;
+                }
+                Note note = head.note();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE note_revisions SET snapshot = 1, body = ? WHERE note_id = ? AND revision = ?")) {
+                    pstmt.setString(1, note.getContent());
+                    pstmt.setLong(2, id);
+                    pstmt.setInt(3, head.revision());
+                    pstmt.executeUpdate();
+                }
+                updateRow(conn, id, note.getTitle(), note.getContent(), note.getUpdatedAt().toEpochMilli(),
+                        head.revision());
+                return true;
+            });
+        } catch (SQLException e) {
+            logger.error("Error compacting note revisions", e);
+            return false;
+        }
+    }
+
+    /**
+     * History of a note, newest first.
+     */
+    public List<Revision> findRevisions(long noteId) {
+        List<Revision> revisions = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_REVISIONS)) {
+            pstmt.setLong(1, noteId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    revisions.add(new Revision(rs.getInt("revision"), rs.getString("title"),
+                            Instant.ofEpochMilli(rs.getLong("created_at")), rs.getBoolean("snapshot")));
+                }
             }
         } catch (SQLException e) {
-            logger.error("Error saving note", e);
+            logger.error("Error finding note revisions", e);
         }
-        return note;
+        return revisions;
+    }
+
+    /**
+     * Content of a note as of the given revision, rebuilt from the nearest
+     * snapshot at or before it.
+     */
+    public Optional<String> findContentAt(long noteId, int revision) {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_CONTENT_AT)) {
+            pstmt.setLong(1, noteId);
+            pstmt.setInt(2, revision);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                String content = null;
+                while (rs.next()) {
+                    content = rs.getBoolean("snapshot")
+                            ? rs.getString("body")
+                            : TextDelta.apply(content, rs.getString("body"));
+                }
+                return Optional.ofNullable(content);
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            logger.error("Error rebuilding note revision", e);
+        }
+        return Optional.empty();
     }
 
     @Override
     public Optional<Note> findById(Long id) {
-        String sql = "SELECT * FROM notes WHERE id = ?";
+        String sql = SELECT_NOTES + " WHERE n.id = ?";
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
@@ -85,11 +236,9 @@ public class NoteRepository implements GenericRepository<Note, Long> {
     @Override
     public List<Note> findAll() {
         List<Note> notes = new ArrayList<>();
-        String sql = "SELECT * FROM notes ORDER BY updated_at DESC";
-
         try (Connection conn = DatabaseManager.connect();
                 Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+                ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
 
             while (rs.next()) {
                 notes.add(mapRow(rs));
@@ -101,24 +250,300 @@ public class NoteRepository implements GenericRepository<Note, Long> {
     }
 
     @Override
-    public void deleteById(Long id) {
-        String sql = "DELETE FROM notes WHERE id = ?";
+    public List<Note> findPage(Note after, int limit) {
+        List<Note> notes = new ArrayList<>();
+        String sql = after == null ? SELECT_FIRST_PAGE : SELECT_PAGE_AFTER;
+
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (after != null) {
+                pstmt.setLong(index++, after.getUpdatedAt().toEpochMilli());
+                pstmt.setLong(index++, after.getId());
+            }
+            pstmt.setInt(index, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                notes.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding page of notes", e);
+        }
+        return notes;
+    }
 
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+    /**
+     * Keyset page of summaries in {@link #findAll()} order. Note bodies stay
+     * in the database; only the stored preview is read.
+     */
+    public List<NoteSummary> findSummaryPage(NoteSummary after, int limit) {
+        List<NoteSummary> summaries = new ArrayList<>();
+        String sql = after == null ? SELECT_FIRST_SUMMARY_PAGE : SELECT_SUMMARY_PAGE_AFTER;
+
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (after != null) {
+                pstmt.setLong(index++, after.getUpdatedAt().toEpochMilli());
+                pstmt.setLong(index++, after.getId());
+            }
+            pstmt.setInt(index, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                summaries.add(mapSummary(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding page of note summaries", e);
+        }
+        return summaries;
+    }
+
+    /**
+     * Summaries of notes whose current title contains the text, most recently
+     * updated first. Like SQL LIKE, only ASCII letters match regardless of case.
+     *
+     * @param excludeId a note to leave out, or null
+     */
+    public List<NoteSummary> findSummariesByTitleContaining(String text, Long excludeId, int limit) {
+        List<NoteSummary> summaries = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_SUMMARIES_BY_TITLE)) {
+            pstmt.setString(1, LikePattern.containing(text));
+            pstmt.setObject(2, excludeId);
+            pstmt.setInt(3, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                summaries.add(mapSummary(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding note summaries by title", e);
+        }
+        return summaries;
+    }
+
+    @Override
+    public Stream<Note> stream() {
+        return ResultSetStream.open(SELECT_ALL, this::mapRow);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        String sql = "DELETE FROM notes WHERE id = ?";
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, id);
+                    pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             logger.error("Error deleting note", e);
         }
     }
 
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        String sql = "DELETE FROM notes WHERE id = ?";
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Long id : ids) {
+                        pstmt.setLong(1, id);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("Error deleting notes", e);
+        }
+    }
+
+    private void insert(Connection conn, Note note, long now) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO notes(title, content, preview, created_at, updated_at, revision) VALUES(?, ?, ?, ?, ?, 0)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, note.getTitle());
+            pstmt.setString(2, note.getContent());
+            pstmt.setString(3, NoteSummary.previewOf(note.getContent()));
+            pstmt.setLong(4, now);
+            pstmt.setLong(5, now);
+            pstmt.executeUpdate();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    note.setId(generatedKeys.getLong(1));
+                } else {
+                    throw new SQLException("Creating note failed, no ID obtained.");
+                }
+            }
+        }
+        insertRevision(conn, note.getId(), 0, true, note.getTitle(), now, nullToEmpty(note.getContent()));
+        note.setCreatedAt(Instant.ofEpochMilli(now));
+        note.setUpdatedAt(Instant.ofEpochMilli(now));
+    }
+
+    /**
+     * Append the next revision: a delta against the current text, or a
+     * snapshot once the last one is {@value #SNAPSHOT_INTERVAL} revisions
+     * back. Either way the row's title, updated_at and preview follow.
+     * Saving unchanged text records nothing.
+     *
+     * @return updated_at after the save, or null if the note does not exist
+     */
+    private Long appendRevision(Connection conn, long id, String title, String content, long now)
+            throws SQLException {
+        Head head = loadHead(conn, id);
+        if (head == null) {
+            return null;
+        }
+        String previous = nullToEmpty(head.note().getContent());
+        String current = nullToEmpty(content);
+        if (Objects.equals(title, head.note().getTitle()) && previous.equals(current)) {
+            return head.note().getUpdatedAt().toEpochMilli();
+        }
+
+        int revision = head.revision() + 1;
+        if (revision - head.snapshotRevision() >= SNAPSHOT_INTERVAL) {
+            insertRevision(conn, id, revision, true, title, now, current);
+            updateRow(conn, id, title, current, now, revision);
+        } else {
+            insertRevision(conn, id, revision, false, title, now, TextDelta.diff(previous, current));
+            touchRow(conn, id, title, current, now);
+        }
+        return now;
+    }
+
+    /**
+     * The note as of its latest revision, read on the given connection.
+     */
+    private Head loadHead(Connection conn, long id) throws SQLException {
+        Note note;
+        int snapshotRevision;
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_NOTES + " WHERE n.id = ?")) {
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                note = mapRow(rs);
+                snapshotRevision = rs.getInt("revision");
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT MAX(revision) FROM note_revisions WHERE note_id = ?")) {
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int revision = rs.next() ? rs.getInt(1) : 0;
+                return new Head(note, snapshotRevision, Math.max(revision, snapshotRevision));
+            }
+        }
+    }
+
+    private void insertRevision(Connection conn, long noteId, int revision, boolean snapshot, String title,
+            long createdAt, String body) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                INSERT INTO note_revisions(note_id, revision, snapshot, title, created_at, body)
+                VALUES(?, ?, ?, ?, ?, ?)
+                """)) {
+            pstmt.setLong(1, noteId);
+            pstmt.setInt(2, revision);
+            pstmt.setBoolean(3, snapshot);
+            pstmt.setString(4, title);
+            pstmt.setLong(5, createdAt);
+            pstmt.setString(6, body);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Write a snapshot into the row and the note's search_index entry.
+     */
+    private void updateRow(Connection conn, long id, String title, String content, long updatedAt, int revision)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE notes SET title = ?, content = ?, preview = ?, updated_at = ?, revision = ? WHERE id = ?")) {
+            pstmt.setString(1, title);
+            pstmt.setString(2, content);
+            pstmt.setString(3, NoteSummary.previewOf(content));
+            pstmt.setLong(4, updatedAt);
+            pstmt.setInt(5, revision);
+            pstmt.setLong(6, id);
+            pstmt.executeUpdate();
+        }
+        indexSearchText(conn, id, title, content);
+    }
+
+    /**
+     * Bring the row's title, preview and updated_at up to the given text
+     * while leaving content at the last snapshot.
+     */
+    private void touchRow(Connection conn, long id, String title, String content, long updatedAt)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE notes SET title = ?, preview = ?, updated_at = ? WHERE id = ?")) {
+            pstmt.setString(1, title);
+            pstmt.setString(2, NoteSummary.previewOf(content));
+            pstmt.setLong(3, updatedAt);
+            pstmt.setLong(4, id);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void indexSearchText(Connection conn, long id, String title, String content) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE search_index SET title = ?, body = ? WHERE rowid = ?")) {
+            pstmt.setString(1, title);
+            pstmt.setString(2, content);
+            pstmt.setLong(3, SearchRepository.keyOf(ItemType.NOTE, id));
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Replay the deltas after the notes row's snapshot onto its content; the
+     * row's title and updated_at are already current. Runs on the row's own
+     * connection, so it sees the same database state.
+     */
+    private void applyPending(Connection conn, Note note, int afterRevision) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_PENDING_REVISIONS)) {
+            pstmt.setLong(1, note.getId());
+            pstmt.setInt(2, afterRevision);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                String content = nullToEmpty(note.getContent());
+                while (rs.next()) {
+                    content = rs.getBoolean("snapshot")
+                            ? rs.getString("body")
+                            : TextDelta.apply(content, rs.getString("body"));
+                }
+                note.setContent(content);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Corrupt revision log for note " + note.getId(), e);
+        }
+    }
+
+    private static String nullToEmpty(String text) {
+        return text == null ? "" : text;
+    }
+
+    private NoteSummary mapSummary(ResultSet rs) throws SQLException {
+        return new NoteSummary(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("preview"),
+                Instant.ofEpochMilli(rs.getLong("updated_at")));
+    }
+
     private Note mapRow(ResultSet rs) throws SQLException {
-        return new Note(
+        Note note = new Note(
                 rs.getLong("id"),
                 rs.getString("title"),
                 rs.getString("content"),
                 Instant.ofEpochMilli(rs.getLong("created_at")),
                 Instant.ofEpochMilli(rs.getLong("updated_at")));
+        if (rs.getBoolean("pending")) {
+            applyPending(rs.getStatement().getConnection(), note, rs.getInt("revision"));
+        }
+        return note;
     }
 }
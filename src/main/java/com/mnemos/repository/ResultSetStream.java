@@ -0,0 +1,107 @@
+package com.mnemos.repository;
+
+import com.mnemos.util.DatabaseManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lazily mapped stream over a query result. The stream holds a reader
+ * connection until it is exhausted or closed, so callers must close it,
+ * typically with try-with-resources.
+ */
+final class ResultSetStream {
+    private static final Logger logger = LoggerFactory.getLogger(ResultSetStream.class);
+
+    private ResultSetStream() {
+    }
+
+    static <T> Stream<T> open(String sql, RowMapper<T> mapper, Object... params) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs;
+        try {
+            conn = DatabaseManager.connect();
+            pstmt = conn.prepareStatement(sql);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            logger.error("Error opening cursor for: {}", sql, e);
+            closeQuietly(pstmt, conn);
+            return Stream.empty();
+        }
+
+        Cursor<T> cursor = new Cursor<>(conn, pstmt, rs, mapper);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    private static void closeQuietly(PreparedStatement pstmt, Connection conn) {
+        try {
+            if (pstmt != null) {
+                pstmt.close();
+            }
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            logger.debug("Error closing cursor", e);
+        }
+    }
+
+    private static class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement pstmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private boolean closed = false;
+
+        Cursor(Connection conn, PreparedStatement pstmt, ResultSet rs, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.pstmt = pstmt;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (rs.next()) {
+                    action.accept(mapper.map(rs));
+                    return true;
+                }
+            } catch (SQLException e) {
+                logger.error("Error reading cursor", e);
+            }
+            // Give the connection back as soon as the rows run out
+            close();
+            return false;
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing result set", e);
+            }
+            closeQuietly(pstmt, conn);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.mnemos.repository;
+
+import com.mnemos.model.Link.ItemType;
+import com.mnemos.util.DatabaseManager;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queries over the search_index FTS5 table, which triggers keep in sync with
+ * tasks, notes and files. Its rowid is the item id shifted left two bits,
+ * with the item kind in the low bits.
+ */
+public class SearchRepository {
+    private static final Logger logger = LoggerFactory.getLogger(SearchRepository.class);
+    private static final String SNAPSHOT_KEY = "search_snapshot";
+
+    // Title matches count ten times as much as body matches
+    private static final String SEARCH_SQL = """
+            SELECT rowid >> 2 AS id, rowid & 3 AS kind,
+                   highlight(search_index, 0, ?1, ?2) AS title,
+                   COALESCE(snippet(search_index, 1, ?1, ?2, '...', ?3), '') AS snippet,
+                   bm25(search_index, 10.0, 1.0) AS rank
+            FROM search_index
+            WHERE search_index MATCH ?4 AND (?5 IS NULL OR rowid & 3 = ?5)
+            ORDER BY rank LIMIT ?6
+            """;
+
+    /**
+     * One matching item. Title and snippet have each matched term wrapped in
+     * the requested markers; a lower rank is a better match.
+     */
+    public record SearchResult(ItemType type, long id, String title, String snippet, double rank) {
+    }
+
+    /**
+     * Best matches for an FTS5 query, best first.
+     *
+     * @param type only items of this type, or null for all
+     * @param snippetTokens most tokens in a body snippet
+     */
+    public List<SearchResult> search(String match, ItemType type, String markStart, String markEnd,
+            int snippetTokens, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(SEARCH_SQL)) {
+            pstmt.setString(1, markStart);
+            pstmt.setString(2, markEnd);
+            pstmt.setInt(3, snippetTokens);
+            pstmt.setString(4, match);
+            if (type != null) {
+                pstmt.setInt(5, kindOf(type));
+            } else {
+                pstmt.setNull(5, Types.INTEGER);
+            }
+            pstmt.setInt(6, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(new SearchResult(
+                            typeOf(rs.getInt("kind")),
+                            rs.getLong("id"),
+                            rs.getString("title"),
+                            rs.getString("snippet"),
+                            rs.getDouble("rank")));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error searching for '{}'", match, e);
+        }
+        return results;
+    }
+
+    /**
+     * Token of the in-memory index snapshot that matches the database, or
+     * null if there is none.
+     */
+    public String findSnapshotToken() {
+        String sql = "SELECT value FROM app_settings WHERE key = ?";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, SNAPSHOT_KEY);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading search snapshot token", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param token the new snapshot's token, or null to mark every snapshot stale
+     * @return false if the write failed
+     */
+    public boolean saveSnapshotToken(String token) {
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(token == null
+                        ? "DELETE FROM app_settings WHERE key = ?"
+                        : "INSERT OR REPLACE INTO app_settings (key, value) VALUES (?, ?)")) {
+                    pstmt.setString(1, SNAPSHOT_KEY);
+                    if (token != null) {
+                        pstmt.setString(2, token);
+                    }
+                    pstmt.executeUpdate();
+                }
+            });
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error saving search snapshot token", e);
+            return false;
+        }
+    }
+
+    /**
+     * Key of an item in search indexes: the id shifted left two bits with
+     * the kind in the low bits. Must match the search_index triggers.
+     */
+    public static long keyOf(ItemType type, long id) {
+        return id << 2 | kindOf(type);
+    }
+
+    public static ItemType typeOfKey(long key) {
+        return typeOf((int) (key & 3));
+    }
+
+    public static long idOfKey(long key) {
+        return key >> 2;
+    }
+
+    private static int kindOf(ItemType type) {
+        return switch (type) {
+            case TASK -> 0;
+            case NOTE -> 1;
+            case FILE -> 2;
+        };
+    }
+
+    private static ItemType typeOf(int kind) {
+        return switch (kind) {
+            case 0 -> ItemType.TASK;
+            case 1 -> ItemType.NOTE;
+            default -> ItemType.FILE;
+        };
+    }
+}
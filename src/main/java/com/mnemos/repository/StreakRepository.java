@@ -34,15 +34,18 @@ public class StreakRepository {
                 WHERE id = 1
                 """;
 
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, streak.getCurrentStreak());
-            pstmt.setString(2,
-                    streak.getLastCompletionDate() != null ? streak.getLastCompletionDate().toString() : null);
-            pstmt.setInt(3, streak.getLongestStreak());
+                    pstmt.setInt(1, streak.getCurrentStreak());
+                    pstmt.setString(2,
+                            streak.getLastCompletionDate() != null ? streak.getLastCompletionDate().toString() : null);
+                    pstmt.setInt(3, streak.getLongestStreak());
 
-            pstmt.executeUpdate();
+                    pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,153 @@
+package com.mnemos.repository;
+
+import com.mnemos.model.Task;
+import com.mnemos.util.DatabaseManager;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Precomputed due dates of recurring task series, up to a horizon date kept
+ * in app_settings. Rows cascade away with their task.
+ */
+public class TaskOccurrenceRepository {
+    private static final Logger logger = LoggerFactory.getLogger(TaskOccurrenceRepository.class);
+    private static final String HORIZON_KEY = "occurrences_until";
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO task_occurrences (task_id, occurs_on) VALUES (?, ?)";
+
+    /**
+     * A task due on a date: a stored task's own due date, or a projected
+     * date of a recurring series.
+     */
+    public record Occurrence(long taskId, String title, Task.Priority priority, LocalDate date) {
+    }
+
+    /**
+     * @return the last date occurrences are stored for, or null if never built
+     */
+    public LocalDate findHorizon() {
+        String sql = "SELECT value FROM app_settings WHERE key = ?";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, HORIZON_KEY);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return LocalDate.parse(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading occurrence horizon", e);
+        }
+        return null;
+    }
+
+    /**
+     * Ids of the tasks that have stored occurrences.
+     */
+    public List<Long> findTaskIds() {
+        List<Long> ids = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT DISTINCT task_id FROM task_occurrences")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding tasks with occurrences", e);
+        }
+        return ids;
+    }
+
+    /**
+     * Replace one task's stored occurrences.
+     */
+    public void replaceForTask(long taskId, List<LocalDate> dates) {
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                try (PreparedStatement delete = conn.prepareStatement("DELETE FROM task_occurrences WHERE task_id = ?")) {
+                    delete.setLong(1, taskId);
+                    delete.executeUpdate();
+                }
+                insert(conn, Map.of(taskId, dates));
+            });
+        } catch (SQLException e) {
+            logger.error("Error saving task occurrences", e);
+        }
+    }
+
+    /**
+     * Store more occurrences and move the horizon, in one transaction.
+     *
+     * @param clear drop every stored occurrence first
+     */
+    public void extend(Map<Long, List<LocalDate>> occurrences, LocalDate horizon, boolean clear) {
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                if (clear) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("DELETE FROM task_occurrences");
+                    }
+                }
+                insert(conn, occurrences);
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT OR REPLACE INTO app_settings (key, value) VALUES (?, ?)")) {
+                    pstmt.setString(1, HORIZON_KEY);
+                    pstmt.setString(2, horizon.toString());
+                    pstmt.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("Error extending task occurrences", e);
+        }
+    }
+
+    /**
+     * Everything due in [from, to]: stored occurrences of recurring series
+     * plus pending one-off tasks, ordered by date.
+     */
+    public List<Occurrence> findBetween(LocalDate from, LocalDate to) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        String sql = """
+                SELECT o.task_id, t.title, t.priority, o.occurs_on FROM task_occurrences o
+                JOIN tasks t ON t.id = o.task_id
+                WHERE o.occurs_on >= ?1 AND o.occurs_on <= ?2
+                UNION ALL
+                SELECT id, title, priority, due_date FROM tasks
+                WHERE due_date >= ?1 AND due_date <= ?2 AND status = 'PENDING'
+                  AND (recurrence_type IS NULL OR recurrence_type = 'NONE')
+                ORDER BY 4, 1
+                """;
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    occurrences.add(new Occurrence(rs.getLong(1), rs.getString(2),
+                            Task.Priority.valueOf(rs.getString(3)), LocalDate.parse(rs.getString(4))));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding task occurrences", e);
+        }
+        return occurrences;
+    }
+
+    private void insert(Connection conn, Map<Long, List<LocalDate>> occurrences) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Map.Entry<Long, List<LocalDate>> entry : occurrences.entrySet()) {
+                for (LocalDate date : entry.getValue()) {
+                    pstmt.setLong(1, entry.getKey());
+                    pstmt.setString(2, date.toString());
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+}
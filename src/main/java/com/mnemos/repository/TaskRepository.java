@@ -5,75 +5,134 @@ import com.mnemos.util.DatabaseManager;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class TaskRepository implements GenericRepository<Task, Long> {
     private static final Logger logger = LoggerFactory.getLogger(TaskRepository.class);
 
+    /**
+     * Epoch millis of the local reminder_date bound as parameter 10. Must
+     * match the backfill in schema migration 4.
+     */
+    private static final String REMINDER_AT = "CAST(strftime('%s', ?10, 'utc') AS INTEGER) * 1000";
+
+    private static final String INSERT_SQL = "INSERT INTO tasks(title, priority, due_date, status, completed_at, pomodoro_count, recurrence_type, recurrence_interval, recurrence_end_date, reminder_date, recurrence_unit, recurrence_days, recurrence_max_occurrences, reminder_at) VALUES(?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10, ?11, ?12, ?13, " + REMINDER_AT + ")";
+    /**
+     * Priority sort key. Must match the expression in the task list indexes
+     * (schema migration 3) exactly, or SQLite falls back to a temp sort.
+     */
+    static final String PRIORITY_RANK = "CASE priority WHEN 'HIGH' THEN 0 WHEN 'MEDIUM' THEN 1 ELSE 2 END";
+
+    private static final String UPDATE_SQL = "UPDATE tasks SET title = ?1, priority = ?2, due_date = ?3, status = ?4, completed_at = ?5, pomodoro_count = ?6, recurrence_type = ?7, recurrence_interval = ?8, recurrence_end_date = ?9, reminder_date = ?10, recurrence_unit = ?11, recurrence_days = ?12, recurrence_max_occurrences = ?13, reminder_at = " + REMINDER_AT + " WHERE id = ?14";
+
+    // Hot queries; QueryPlanTest checks that each one is index-backed
+    static final String SELECT_ALL = "SELECT * FROM tasks ORDER BY due_date ASC";
+    static final String SELECT_FIRST_PAGE = "SELECT * FROM tasks ORDER BY due_date ASC, id ASC LIMIT ?";
+    static final String SELECT_PAGE_AFTER = "SELECT * FROM tasks WHERE (due_date, id) > (?, ?) ORDER BY due_date ASC, id ASC LIMIT ?";
+    static final String SELECT_UNDATED_PAGE_AFTER = "SELECT * FROM tasks WHERE due_date IS NULL AND id > ? ORDER BY id ASC LIMIT ?";
+    static final String SELECT_DATED_PAGE = "SELECT * FROM tasks WHERE due_date IS NOT NULL ORDER BY due_date ASC, id ASC LIMIT ?";
+    static final String SELECT_BY_TITLE = """
+            SELECT * FROM tasks WHERE title LIKE ? ESCAPE '\\' AND id IS NOT ?
+            ORDER BY due_date ASC LIMIT ?
+            """;
+    static final String SELECT_EARLIEST_COMPLETED = "SELECT MIN(completed_at) FROM tasks WHERE status = 'COMPLETED'";
+    static final String DELETE_COMPLETED_BEFORE = """
+            DELETE FROM tasks WHERE id IN (
+                SELECT id FROM tasks
+                WHERE status = 'COMPLETED' AND completed_at < ?
+                ORDER BY completed_at LIMIT ?)
+            RETURNING id
+            """;
+    static final String DELETE_ALL_COMPLETED = "DELETE FROM tasks WHERE status = 'COMPLETED' RETURNING id";
+    static final String SELECT_REMINDERS_BETWEEN = "SELECT id, reminder_at FROM tasks WHERE reminder_at >= ? AND reminder_at < ?";
+    static final String SELECT_PREDECESSORS = "SELECT predecessor_id FROM task_dependencies WHERE successor_id = ?";
+    static final String COUNT_UNFINISHED_PREDECESSORS = """
+            SELECT COUNT(*) FROM task_dependencies td
+            JOIN tasks t ON td.predecessor_id = t.id
+            WHERE td.successor_id = ? AND t.status != 'COMPLETED'
+            """;
+
     @Override
     public Task save(Task task) {
-        String sql;
         boolean isNew = (task.getId() == null);
+        String sql = isNew ? INSERT_SQL : UPDATE_SQL;
 
-        if (isNew) {
-            sql = "INSERT INTO tasks(title, priority, due_date, status, completed_at, pomodoro_count, recurrence_type, recurrence_interval, recurrence_end_date, reminder_date, recurrence_unit, recurrence_days, recurrence_max_occurrences) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        } else {
-            sql = "UPDATE tasks SET title = ?, priority = ?, due_date = ?, status = ?, completed_at = ?, pomodoro_count = ?, recurrence_type = ?, recurrence_interval = ?, recurrence_end_date = ?, reminder_date = ?, recurrence_unit = ?, recurrence_days = ?, recurrence_max_occurrences = ? WHERE id = ?";
-        }
-
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, task.getTitle());
-            pstmt.setString(2, task.getPriority().name());
-            pstmt.setString(3, task.getDueDate() != null ? task.getDueDate().toString() : null);
-            pstmt.setString(4, task.getStatus().name());
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    bindTask(pstmt, task);
 
-            // Set completed_at timestamp when status is COMPLETED
-            if (task.getStatus() == Task.Status.COMPLETED) {
-                pstmt.setLong(5, System.currentTimeMillis());
-            } else {
-                pstmt.setNull(5, Types.INTEGER);
-            }
-
-            pstmt.setInt(6, task.getPomodoroCount());
-
-            // New fields
-            pstmt.setString(7, task.getRecurrenceType().name());
-            pstmt.setInt(8, task.getRecurrenceInterval());
-            pstmt.setString(9, task.getRecurrenceEndDate() != null ? task.getRecurrenceEndDate().toString() : null);
-            pstmt.setString(10, task.getReminderDate());
-            pstmt.setString(11, task.getRecurrenceUnit() != null ? task.getRecurrenceUnit().name() : null);
-            pstmt.setString(12, task.getRecurrenceDays());
-            pstmt.setInt(13, task.getRecurrenceMaxOccurrences());
-
-            // For UPDATE, add the ID parameter
-            if (!isNew) {
-                pstmt.setLong(14, task.getId());
-            }
+                    // For UPDATE, add the ID parameter
+                    if (!isNew) {
+                        pstmt.setLong(14, task.getId());
+                    }
 
-            int affectedRows = pstmt.executeUpdate();
+                    int affectedRows = pstmt.executeUpdate();
 
-            if (affectedRows == 0) {
-                throw new SQLException("Creating/Updating task failed, no rows affected.");
-            }
+                    if (affectedRows == 0) {
+                        throw new SQLException("Creating/Updating task failed, no rows affected.");
+                    }
 
-            if (isNew) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        task.setId(generatedKeys.getLong(1));
+                    if (isNew) {
+                        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                            if (generatedKeys.next()) {
+                                task.setId(generatedKeys.getLong(1));
+                            }
+                        }
                     }
                 }
-            }
+            });
         } catch (SQLException e) {
             logger.error("Error saving task", e);
         }
         return task;
     }
 
+    @Override
+    public List<Task> saveAll(Collection<Task> tasks) {
+        List<Task> inserted = tasks.stream().filter(task -> task.getId() == null).toList();
+
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                // Inserts run one at a time so each gets its generated key; updates are batched
+                try (PreparedStatement insert = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                        PreparedStatement update = conn.prepareStatement(UPDATE_SQL)) {
+                    boolean hasUpdates = false;
+                    for (Task task : tasks) {
+                        if (task.getId() == null) {
+                            bindTask(insert, task);
+                            insert.executeUpdate();
+                            try (ResultSet generatedKeys = insert.getGeneratedKeys()) {
+                                if (generatedKeys.next()) {
+                                    task.setId(generatedKeys.getLong(1));
+                                }
+                            }
+                        } else {
+                            bindTask(update, task);
+                            update.setLong(14, task.getId());
+                            update.addBatch();
+                            hasUpdates = true;
+                        }
+                    }
+                    if (hasUpdates) {
+                        update.executeBatch();
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            // Rolled back, so ids handed out inside the transaction do not exist
+            inserted.forEach(task -> task.setId(null));
+            logger.error("Error saving tasks", e);
+        }
+        return new ArrayList<>(tasks);
+    }
+
     @Override
     public Optional<Task> findById(Long id) {
         String sql = "SELECT * FROM tasks WHERE id = ?";
@@ -91,13 +150,36 @@ public class TaskRepository implements GenericRepository<Task, Long> {
         return Optional.empty();
     }
 
+    /**
+     * Tasks with the given ids in one query; missing ids are skipped. The ids
+     * are bound as a single JSON array so the statement text, and its cached
+     * compiled form, does not depend on how many there are.
+     */
+    public List<Task> findAllById(long[] ids) {
+        List<Task> tasks = new ArrayList<>();
+        if (ids.length == 0) {
+            return tasks;
+        }
+        String sql = "SELECT * FROM tasks WHERE id IN (SELECT value FROM json_each(?))";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, Arrays.toString(ids));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next())
+                    tasks.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding tasks by id", e);
+        }
+        return tasks;
+    }
+
     @Override
     public List<Task> findAll() {
         List<Task> tasks = new ArrayList<>();
-        String sql = "SELECT * FROM tasks ORDER BY due_date ASC";
         try (Connection conn = DatabaseManager.connect();
                 Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+                ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
             while (rs.next())
                 tasks.add(mapRow(rs));
         } catch (SQLException e) {
@@ -106,74 +188,412 @@ public class TaskRepository implements GenericRepository<Task, Long> {
         return tasks;
     }
 
+    /**
+     * Tasks without a due date sort first, and a row-value comparison against
+     * NULL matches nothing, so a page anchored on such a task finishes the
+     * remaining undated tasks and then continues from the first dated one.
+     */
     @Override
-    public void deleteById(Long id) {
-        String sql = "DELETE FROM tasks WHERE id = ?";
+    public List<Task> findPage(Task after, int limit) {
+        List<Task> tasks = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect()) {
+            if (after == null) {
+                readPage(conn, SELECT_FIRST_PAGE, tasks, limit);
+            } else if (after.getDueDate() != null) {
+                readPage(conn, SELECT_PAGE_AFTER, tasks, limit, after.getDueDate().toString(), after.getId());
+            } else {
+                readPage(conn, SELECT_UNDATED_PAGE_AFTER, tasks, limit, after.getId());
+                if (tasks.size() < limit) {
+                    readPage(conn, SELECT_DATED_PAGE, tasks, limit - tasks.size());
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding page of tasks", e);
+        }
+        return tasks;
+    }
+
+    private void readPage(Connection conn, String sql, List<Task> tasks, int limit, Object... params)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            pstmt.setInt(params.length + 1, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next())
+                tasks.add(mapRow(rs));
+        }
+    }
+
+    /**
+     * Tasks whose title contains the text, in {@link #stream()} order. Like
+     * SQL LIKE, only ASCII letters match regardless of case.
+     *
+     * @param excludeId a task to leave out, or null
+     */
+    public List<Task> findByTitleContaining(String text, Long excludeId, int limit) {
+        List<Task> tasks = new ArrayList<>();
         try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_BY_TITLE)) {
+            pstmt.setString(1, LikePattern.containing(text));
+            pstmt.setObject(2, excludeId);
+            pstmt.setInt(3, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                tasks.add(mapRow(rs));
+            }
         } catch (SQLException e) {
-            logger.error("Error deleting task", e);
+            logger.error("Error finding tasks by title", e);
         }
+        return tasks;
     }
 
-    public int deleteOldCompletedTasks(long minutesOld) {
-        long cutoffTime = System.currentTimeMillis() - (minutesOld * 60 * 1000);
-        String sql = "DELETE FROM tasks WHERE status = 'COMPLETED' AND completed_at IS NOT NULL AND completed_at < ?";
+    @Override
+    public Stream<Task> stream() {
+        return ResultSetStream.open(SELECT_ALL, this::mapRow);
+    }
+
+    /**
+     * Tasks matching the given filters, highest priority first and then by due
+     * date. Any filter may be null to leave it out. The due-date bounds are
+     * inclusive and exclude tasks without a due date.
+     */
+    public List<Task> findByFilter(Task.Status status, Task.Priority priority, LocalDate dueFrom, LocalDate dueTo) {
+        List<Task> tasks = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (status != null) {
+            params.add(status.name());
+        }
+        if (priority != null) {
+            params.add(priorityRank(priority));
+        }
+        if (dueFrom != null) {
+            params.add(dueFrom.toString());
+        }
+        if (dueTo != null) {
+            params.add(dueTo.toString());
+        }
+        String sql = filterSql(status != null, priority != null, dueFrom != null, dueTo != null);
 
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setLong(1, cutoffTime);
-            return pstmt.executeUpdate();
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next())
+                tasks.add(mapRow(rs));
+        } catch (SQLException e) {
+            logger.error("Error finding filtered tasks", e);
+        }
+        return tasks;
+    }
+
+    /**
+     * The {@link #findByFilter} query for the filters that are set, with
+     * their parameters in argument order.
+     */
+    static String filterSql(boolean status, boolean priority, boolean dueFrom, boolean dueTo) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM tasks WHERE 1 = 1");
+        if (status) {
+            sql.append(" AND status = ?");
+        }
+        if (priority) {
+            // Filter on the rank expression so the index prefix still applies
+            sql.append(" AND ").append(PRIORITY_RANK).append(" = ?");
+        }
+        if (dueFrom) {
+            sql.append(" AND due_date >= ?");
+        }
+        if (dueTo) {
+            sql.append(" AND due_date <= ?");
+        }
+        // With a fixed priority the rank is constant; SQLite does not drop a
+        // constant expression term from ORDER BY and would add a temp sort
+        sql.append(priority ? " ORDER BY due_date ASC" : " ORDER BY " + PRIORITY_RANK + ", due_date ASC");
+        return sql.toString();
+    }
+
+    private static int priorityRank(Task.Priority priority) {
+        return switch (priority) {
+            case HIGH -> 0;
+            case MEDIUM -> 1;
+            case LOW -> 2;
+        };
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        String sql = "DELETE FROM tasks WHERE id = ?";
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, id);
+                    pstmt.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("Error deleting task", e);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        String sql = "DELETE FROM tasks WHERE id = ?";
+        try {
+            DatabaseManager.runInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Long id : ids) {
+                        pstmt.setLong(1, id);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            });
         } catch (SQLException e) {
-            logger.error("Error deleting old completed tasks", e);
-            return 0;
+            logger.error("Error deleting tasks", e);
         }
     }
 
-    public int deleteAllCompletedTasks() {
-        String sql = "DELETE FROM tasks WHERE status = 'COMPLETED'";
+    /**
+     * @return the earliest completed_at of any completed task, or null if there is none
+     */
+    public Long findEarliestCompletedAt() {
         try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            return pstmt.executeUpdate();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(SELECT_EARLIEST_COMPLETED)) {
+            if (rs.next()) {
+                long completedAt = rs.getLong(1);
+                return rs.wasNull() ? null : completedAt;
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding earliest completed task", e);
+        }
+        return null;
+    }
+
+    /**
+     * Delete up to {@code limit} tasks completed before the cutoff, oldest first.
+     *
+     * @return ids of the deleted tasks
+     */
+    public long[] deleteCompletedBefore(long cutoff, int limit) {
+        try {
+            return DatabaseManager.write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(DELETE_COMPLETED_BEFORE)) {
+                    pstmt.setLong(1, cutoff);
+                    pstmt.setInt(2, limit);
+                    long[] ids = new long[limit];
+                    int count = 0;
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids[count++] = rs.getLong(1);
+                        }
+                    }
+                    return Arrays.copyOf(ids, count);
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("Error deleting completed tasks", e);
+            return new long[0];
+        }
+    }
+
+    /**
+     * @return ids of the deleted tasks
+     */
+    public long[] deleteAllCompletedTasks() {
+        try {
+            return DatabaseManager.write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(DELETE_ALL_COMPLETED)) {
+                    long[] ids = new long[16];
+                    int count = 0;
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (count == ids.length) {
+                                ids = Arrays.copyOf(ids, count * 2);
+                            }
+                            ids[count++] = rs.getLong(1);
+                        }
+                    }
+                    return Arrays.copyOf(ids, count);
+                }
+            });
         } catch (SQLException e) {
             logger.error("Error deleting all completed tasks", e);
-            return 0;
+            return new long[0];
         }
     }
 
     // Dependency Methods
 
-    public void addDependency(long predecessorId, long successorId) {
+    /**
+     * @return false if the write failed
+     */
+    public boolean addDependency(long predecessorId, long successorId) {
         String sql = "INSERT OR IGNORE INTO task_dependencies (predecessor_id, successor_id) VALUES (?, ?)";
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setLong(1, predecessorId);
-            pstmt.setLong(2, successorId);
-            pstmt.executeUpdate();
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, predecessorId);
+                    pstmt.setLong(2, successorId);
+                    pstmt.executeUpdate();
+                }
+            });
+            return true;
         } catch (SQLException e) {
             logger.error("Error adding dependency", e);
+            return false;
         }
     }
 
-    public void removeDependency(long predecessorId, long successorId) {
+    /**
+     * @return false if the write failed
+     */
+    public boolean removeDependency(long predecessorId, long successorId) {
         String sql = "DELETE FROM task_dependencies WHERE predecessor_id = ? AND successor_id = ?";
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, predecessorId);
+                    pstmt.setLong(2, successorId);
+                    pstmt.executeUpdate();
+                }
+            });
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error removing dependency", e);
+            return false;
+        }
+    }
+
+    /**
+     * Every dependency edge as a {predecessor_id, successor_id} pair.
+     */
+    public List<long[]> findAllDependencies() {
+        List<long[]> edges = new ArrayList<>();
+        String sql = "SELECT predecessor_id, successor_id FROM task_dependencies";
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                edges.add(new long[] { rs.getLong(1), rs.getLong(2) });
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading dependencies", e);
+        }
+        return edges;
+    }
+
+    /**
+     * Tasks that appear on either side of a dependency.
+     */
+    public List<Task> findWithDependencies() {
+        List<Task> tasks = new ArrayList<>();
+        String sql = """
+                SELECT * FROM tasks WHERE id IN (
+                    SELECT predecessor_id FROM task_dependencies
+                    UNION
+                    SELECT successor_id FROM task_dependencies)
+                """;
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next())
+                tasks.add(mapRow(rs));
+        } catch (SQLException e) {
+            logger.error("Error loading dependent tasks", e);
+        }
+        return tasks;
+    }
+
+    /**
+     * Pending tasks that repeat, i.e. the current head of each series.
+     */
+    public List<Task> findPendingRecurring() {
+        List<Task> tasks = new ArrayList<>();
+        String sql = "SELECT * FROM tasks WHERE status = 'PENDING' AND recurrence_type != 'NONE'";
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next())
+                tasks.add(mapRow(rs));
+        } catch (SQLException e) {
+            logger.error("Error finding recurring tasks", e);
+        }
+        return tasks;
+    }
+
+    /**
+     * A task reachable from another through dependencies.
+     *
+     * @param direct  whether it depends on the starting task itself
+     * @param blocked whether any of its own predecessors is unfinished
+     */
+    public record DownstreamTask(long id, boolean direct, boolean blocked) {
+    }
+
+    /**
+     * Every task that directly or transitively depends on the given one,
+     * with its current blocked state, in one recursive query. After the task
+     * completes, the direct entries that are not blocked are the newly
+     * unblocked tasks; the blocked entries are still waiting on some chain.
+     */
+    public List<DownstreamTask> findDownstream(long taskId) {
+        List<DownstreamTask> result = new ArrayList<>();
+        String sql = """
+                WITH RECURSIVE downstream(id) AS (
+                    SELECT successor_id FROM task_dependencies WHERE predecessor_id = ?1
+                    UNION
+                    SELECT td.successor_id FROM task_dependencies td
+                    JOIN downstream d ON td.predecessor_id = d.id
+                )
+                SELECT d.id,
+                       EXISTS (SELECT 1 FROM task_dependencies td
+                               WHERE td.predecessor_id = ?1 AND td.successor_id = d.id) AS direct,
+                       EXISTS (SELECT 1 FROM task_dependencies td JOIN tasks t ON t.id = td.predecessor_id
+                               WHERE td.successor_id = d.id AND t.status != 'COMPLETED') AS blocked
+                FROM downstream d
+                """;
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setLong(1, predecessorId);
-            pstmt.setLong(2, successorId);
-            pstmt.executeUpdate();
+            pstmt.setLong(1, taskId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new DownstreamTask(rs.getLong(1), rs.getBoolean(2), rs.getBoolean(3)));
+                }
+            }
         } catch (SQLException e) {
-            logger.error("Error removing dependency", e);
+            logger.error("Error finding downstream tasks", e);
+        }
+        return result;
+    }
+
+    /**
+     * Reminders due in [from, to), as {task_id, reminder_at} pairs.
+     */
+    public List<long[]> findRemindersBetween(long from, long to) {
+        List<long[]> reminders = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_REMINDERS_BETWEEN)) {
+            pstmt.setLong(1, from);
+            pstmt.setLong(2, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reminders.add(new long[] { rs.getLong(1), rs.getLong(2) });
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading reminders", e);
         }
+        return reminders;
     }
 
     public List<Long> getPredecessors(long taskId) {
         List<Long> ids = new ArrayList<>();
-        String sql = "SELECT predecessor_id FROM task_dependencies WHERE successor_id = ?";
         try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                PreparedStatement pstmt = conn.prepareStatement(SELECT_PREDECESSORS)) {
             pstmt.setLong(1, taskId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
@@ -187,13 +607,8 @@ public class TaskRepository implements GenericRepository<Task, Long> {
 
     public boolean canStart(long taskId) {
         // A task can start if all its predecessors are COMPLETED
-        String sql = """
-                    SELECT COUNT(*) FROM task_dependencies td
-                    JOIN tasks t ON td.predecessor_id = t.id
-                    WHERE td.successor_id = ? AND t.status != 'COMPLETED'
-                """;
         try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                PreparedStatement pstmt = conn.prepareStatement(COUNT_UNFINISHED_PREDECESSORS)) {
             pstmt.setLong(1, taskId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -205,6 +620,31 @@ public class TaskRepository implements GenericRepository<Task, Long> {
         return true; // Default to true if error
     }
 
+    private void bindTask(PreparedStatement pstmt, Task task) throws SQLException {
+        pstmt.setString(1, task.getTitle());
+        pstmt.setString(2, task.getPriority().name());
+        pstmt.setString(3, task.getDueDate() != null ? task.getDueDate().toString() : null);
+        pstmt.setString(4, task.getStatus().name());
+
+        // Set completed_at timestamp when status is COMPLETED
+        if (task.getStatus() == Task.Status.COMPLETED) {
+            pstmt.setLong(5, System.currentTimeMillis());
+        } else {
+            pstmt.setNull(5, Types.INTEGER);
+        }
+
+        pstmt.setInt(6, task.getPomodoroCount());
+
+        // New fields
+        pstmt.setString(7, task.getRecurrenceType().name());
+        pstmt.setInt(8, task.getRecurrenceInterval());
+        pstmt.setString(9, task.getRecurrenceEndDate() != null ? task.getRecurrenceEndDate().toString() : null);
+        pstmt.setString(10, task.getReminderDate());
+        pstmt.setString(11, task.getRecurrenceUnit() != null ? task.getRecurrenceUnit().name() : null);
+        pstmt.setString(12, task.getRecurrenceDays());
+        pstmt.setInt(13, task.getRecurrenceMaxOccurrences());
+    }
+
     private Task mapRow(ResultSet rs) throws SQLException {
         String dateStr = rs.getString("due_date");
         LocalDate date = (dateStr != null && !dateStr.isEmpty()) ? LocalDate.parse(dateStr) : null;
@@ -62,12 +62,14 @@ public class AuthService {
         String hash = hashPassword(password);
         String sql = "INSERT OR REPLACE INTO app_settings (key, value) VALUES (?, ?)";
 
-        try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, PASSWORD_KEY);
-            pstmt.setString(2, hash);
-            pstmt.executeUpdate();
+        try {
+            DatabaseManager.writeAction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, PASSWORD_KEY);
+                    pstmt.setString(2, hash);
+                    pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
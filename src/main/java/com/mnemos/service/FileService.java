@@ -1,11 +1,15 @@
 package com.mnemos.service;
 
 import com.mnemos.model.FileReference;
+import com.mnemos.model.Link.ItemType;
 import com.mnemos.repository.FileRepository;
 import java.io.File;
 import java.awt.Desktop;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public class FileService {
     private final FileRepository repository;
@@ -15,20 +19,46 @@ public class FileService {
     }
 
     public FileReference addFile(File file) {
+        FileReference saved = repository.save(toReference(file));
+        SearchIndexService.getInstance().indexFile(saved);
+        return saved;
+    }
+
+    /**
+     * Add many files in a single transaction.
+     */
+    public List<FileReference> addFiles(Collection<File> files) {
+        List<FileReference> refs = new ArrayList<>(files.size());
+        for (File file : files) {
+            refs.add(toReference(file));
+        }
+        List<FileReference> saved = repository.saveAll(refs);
+        saved.forEach(SearchIndexService.getInstance()::indexFile);
+        return saved;
+    }
+
+    private FileReference toReference(File file) {
         String type = getFileExtension(file);
-        FileReference ref = new FileReference(
+        return new FileReference(
                 null,
                 file.getName(),
                 file.getAbsolutePath(),
                 type,
                 Instant.now());
-        return repository.save(ref);
+    }
+
+    public Optional<FileReference> getFileById(Long id) {
+        return repository.findById(id);
     }
 
     public List<FileReference> getAllFiles() {
         return repository.findAll();
     }
 
+    public List<FileReference> getFilesPage(FileReference after, int limit) {
+        return repository.findPage(after, limit);
+    }
+
     public void openFile(FileReference ref) {
         try {
             File file = new File(ref.getPath());
@@ -42,6 +72,14 @@ public class FileService {
 
     public void deleteFile(Long id) {
         repository.deleteById(id);
+        SearchIndexService.getInstance().remove(ItemType.FILE, id);
+    }
+
+    public void deleteFiles(Collection<Long> ids) {
+        repository.deleteAllById(ids);
+        for (Long id : ids) {
+            SearchIndexService.getInstance().remove(ItemType.FILE, id);
+        }
     }
 
     private String getFileExtension(File file) {
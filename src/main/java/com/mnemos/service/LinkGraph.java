@@ -0,0 +1,262 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Link;
+import com.mnemos.model.Link.ItemType;
+import com.mnemos.util.LongHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory adjacency index over all links, so link checks and neighbour
+ * listings need no database round trip. Each item is a node keyed by a
+ * single long: the item type ordinal in the top byte and the row id below.
+ * Kept in sync by {@link LinkService}; loaded once at startup.
+ */
+public class LinkGraph {
+    private static final LinkGraph INSTANCE = new LinkGraph();
+
+    private static final int TYPE_SHIFT = 56;
+    private static final long ID_MASK = (1L << TYPE_SHIFT) - 1;
+    private static final ItemType[] TYPES = ItemType.values();
+
+    private final LongHashMap<Adjacency> nodes = new LongHashMap<>();
+    private final LongHashMap<Edge> edges = new LongHashMap<>();
+    private boolean loaded = false;
+
+    private LinkGraph() {
+    }
+
+    public static LinkGraph getInstance() {
+        return INSTANCE;
+    }
+
+    public static long nodeKey(ItemType type, long id) {
+        return ((long) type.ordinal() << TYPE_SHIFT) | id;
+    }
+
+    public static ItemType typeOf(long nodeKey) {
+        return TYPES[(int) (nodeKey >>> TYPE_SHIFT)];
+    }
+
+    public static long idOf(long nodeKey) {
+        return nodeKey & ID_MASK;
+    }
+
+    /**
+     * An item reached from the starting item, with its distance in links.
+     */
+    public record Neighbor(ItemType type, long id, int hops) {
+    }
+
+    private record Edge(long linkId, long source, long target, long createdAt) {
+    }
+
+    /**
+     * Links touching one node. The other endpoint and link id share an index;
+     * removal swaps the last entry into the hole.
+     */
+    private static class Adjacency {
+        long[] others = new long[4];
+        long[] linkIds = new long[4];
+        int size;
+        int incoming;
+
+        void add(long other, long linkId) {
+            if (size == others.length) {
+                others = Arrays.copyOf(others, size * 2);
+                linkIds = Arrays.copyOf(linkIds, size * 2);
+            }
+            others[size] = other;
+            linkIds[size] = linkId;
+            size++;
+        }
+
+        void remove(long linkId) {
+            for (int i = 0; i < size; i++) {
+                if (linkIds[i] == linkId) {
+                    size--;
+                    others[i] = others[size];
+                    linkIds[i] = linkIds[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Replace the graph contents with the given links.
+     */
+    public synchronized void load(Iterable<Link> links) {
+        nodes.clear();
+        edges.clear();
+        for (Link link : links) {
+            add(link);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Index a saved link. Links without an id are ignored.
+     */
+    public synchronized void add(Link link) {
+        if (link.getId() == null || edges.containsKey(link.getId())) {
+            return;
+        }
+        long source = nodeKey(link.getSourceType(), link.getSourceId());
+        long target = nodeKey(link.getTargetType(), link.getTargetId());
+        long createdAt = link.getCreatedAt() != null ? link.getCreatedAt() : 0;
+        edges.put(link.getId(), new Edge(link.getId(), source, target, createdAt));
+
+        node(source).add(target, link.getId());
+        if (source != target) {
+            node(target).add(source, link.getId());
+        }
+        node(target).incoming++;
+    }
+
+    /**
+     * @return false if no link with this id was indexed
+     */
+    public synchronized boolean remove(long linkId) {
+        Edge edge = edges.remove(linkId);
+        if (edge == null) {
+            return false;
+        }
+        if (edge.source == edge.target) {
+            detach(edge.source, linkId, true);
+        } else {
+            detach(edge.source, linkId, false);
+            detach(edge.target, linkId, true);
+        }
+        return true;
+    }
+
+    public synchronized Link getLink(long linkId) {
+        Edge edge = edges.get(linkId);
+        return edge == null ? null : toLink(edge);
+    }
+
+    /**
+     * Whether the two items are linked in either direction.
+     */
+    public synchronized boolean isLinked(ItemType typeA, long idA, ItemType typeB, long idB) {
+        long a = nodeKey(typeA, idA);
+        long b = nodeKey(typeB, idB);
+        Adjacency adjA = nodes.get(a);
+        Adjacency adjB = nodes.get(b);
+        if (adjA == null || adjB == null) {
+            return false;
+        }
+        // Scan the smaller side
+        Adjacency scan = adjA.size <= adjB.size ? adjA : adjB;
+        long other = scan == adjA ? b : a;
+        for (int i = 0; i < scan.size; i++) {
+            if (scan.others[i] == other) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int degree(ItemType type, long id) {
+        Adjacency adjacency = nodes.get(nodeKey(type, id));
+        return adjacency == null ? 0 : adjacency.size;
+    }
+
+    /**
+     * Number of links pointing at the item, i.e. where it is the target.
+     */
+    public synchronized int backlinkCount(ItemType type, long id) {
+        Adjacency adjacency = nodes.get(nodeKey(type, id));
+        return adjacency == null ? 0 : adjacency.incoming;
+    }
+
+    /**
+     * All links touching the item, in either direction.
+     */
+    public synchronized List<Link> linksOf(ItemType type, long id) {
+        Adjacency adjacency = nodes.get(nodeKey(type, id));
+        if (adjacency == null) {
+            return List.of();
+        }
+        List<Link> links = new ArrayList<>(adjacency.size);
+        for (int i = 0; i < adjacency.size; i++) {
+            links.add(toLink(edges.get(adjacency.linkIds[i])));
+        }
+        return links;
+    }
+
+    /**
+     * Items within {@code maxHops} links of the given item, nearest first,
+     * ignoring link direction. The item itself is not included.
+     */
+    public synchronized List<Neighbor> neighborhood(ItemType type, long id, int maxHops) {
+        long start = nodeKey(type, id);
+        List<Neighbor> result = new ArrayList<>();
+        if (maxHops < 1 || nodes.get(start) == null) {
+            return result;
+        }
+
+        LongHashMap<Boolean> visited = new LongHashMap<>();
+        visited.put(start, Boolean.TRUE);
+        long[] frontier = { start };
+        int frontierSize = 1;
+
+        for (int hops = 1; hops <= maxHops && frontierSize > 0; hops++) {
+            long[] next = new long[16];
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++) {
+                Adjacency adjacency = nodes.get(frontier[f]);
+                for (int i = 0; i < adjacency.size; i++) {
+                    long other = adjacency.others[i];
+                    if (visited.put(other, Boolean.TRUE) == null) {
+                        result.add(new Neighbor(typeOf(other), idOf(other), hops));
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        }
+                        next[nextSize++] = other;
+                    }
+                }
+            }
+            frontier = next;
+            frontierSize = nextSize;
+        }
+        return result;
+    }
+
+    private Adjacency node(long key) {
+        Adjacency adjacency = nodes.get(key);
+        if (adjacency == null) {
+            adjacency = new Adjacency();
+            nodes.put(key, adjacency);
+        }
+        return adjacency;
+    }
+
+    private void detach(long key, long linkId, boolean incoming) {
+        Adjacency adjacency = nodes.get(key);
+        adjacency.remove(linkId);
+        if (incoming) {
+            adjacency.incoming--;
+        }
+        if (adjacency.size == 0) {
+            nodes.remove(key);
+        }
+    }
+
+    private static Link toLink(Edge edge) {
+        Link link = new Link();
+        link.setId(edge.linkId);
+        link.setSourceType(typeOf(edge.source));
+        link.setSourceId(idOf(edge.source));
+        link.setTargetType(typeOf(edge.target));
+        link.setTargetId(idOf(edge.target));
+        link.setCreatedAt(edge.createdAt);
+        return link;
+    }
+}
@@ -8,6 +8,7 @@ import com.mnemos.repository.TaskRepository;
 import com.mnemos.repository.FileRepository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class LinkService {
@@ -16,84 +17,94 @@ public class LinkService {
     private final NoteRepository noteRepository = new NoteRepository();
     private final FileRepository fileRepository = new FileRepository();
 
+    /**
+     * Load the in-memory link graph from the database. Called once at
+     * startup; later changes go through this service and keep it in sync.
+     */
+    public void loadGraph() {
+        LinkGraph.getInstance().load(linkRepository.findAll());
+    }
+
+    private LinkGraph graph() {
+        LinkGraph graph = LinkGraph.getInstance();
+        if (!graph.isLoaded()) {
+            loadGraph();
+        }
+        return graph;
+    }
+
     public void linkItems(ItemType sourceType, Long sourceId, ItemType targetType, Long targetId) {
-        if (!linkRepository.isLinked(sourceType, sourceId, targetType, targetId)) {
+        if (!graph().isLinked(sourceType, sourceId, targetType, targetId)) {
             Link link = new Link(sourceType, sourceId, targetType, targetId);
             linkRepository.save(link);
+            graph().add(link);
         }
     }
 
+    /**
+     * Create all links that do not exist yet in one transaction.
+     *
+     * @return the links that were created
+     */
+    public List<Link> linkAll(Collection<Link> links) {
+        List<Link> created = linkRepository.saveAll(links);
+        for (Link link : created) {
+            graph().add(link);
+        }
+        return created;
+    }
+
     public void unlinkItems(Long linkId) {
-        linkRepository.delete(linkId);
+        if (linkRepository.delete(linkId)) {
+            graph().remove(linkId);
+        }
     }
 
-    public List<LinkedItem> getLinkedItems(ItemType type, Long id) {
-        List<LinkedItem> linkedItems = new ArrayList<>();
-        List<Link> links = linkRepository.getLinksForItem(type, id);
-
-        for (Link link : links) {
-            ItemType otherType;
-            Long otherId;
-
-            if (link.getSourceType() == type && link.getSourceId().equals(id)) {
-                otherType = link.getTargetType();
-                otherId = link.getTargetId();
-            } else {
-                otherType = link.getSourceType();
-                otherId = link.getSourceId();
+    public void unlinkAll(Collection<Long> linkIds) {
+        if (linkRepository.deleteAll(linkIds)) {
+            for (Long linkId : linkIds) {
+                graph().remove(linkId);
             }
+        }
+    }
 
-            LinkedItem item = getItemDetails(otherType, otherId, link.getId());
-            if (item != null) {
-                linkedItems.add(item);
-            }
+    public boolean isLinked(ItemType typeA, Long idA, ItemType typeB, Long idB) {
+        return graph().isLinked(typeA, idA, typeB, idB);
+    }
+
+    public List<LinkedItem> getLinkedItems(ItemType type, Long id) {
+        // Most items have no links; skip the query for them
+        if (graph().degree(type, id) == 0) {
+            return new ArrayList<>();
         }
+        return linkRepository.findLinkedItems(type, id);
+    }
 
-        return linkedItems;
+    /**
+     * Items reachable from the given item within {@code maxHops} links.
+     */
+    public List<LinkGraph.Neighbor> getNeighborhood(ItemType type, Long id, int maxHops) {
+        return graph().neighborhood(type, id, maxHops);
     }
 
-    private LinkedItem getItemDetails(ItemType type, Long id, Long linkId) {
-        return switch (type) {
-            case TASK -> {
-                var taskOpt = taskRepository.findById(id);
-                if (taskOpt.isPresent()) {
-                    Task task = taskOpt.get();
-                    yield new LinkedItem(type, id, task.getTitle(),
-                            task.getStatus().toString(), linkId);
-                }
-                yield null;
-            }
-            case NOTE -> {
-                var noteOpt = noteRepository.findById(id);
-                if (noteOpt.isPresent()) {
-                    Note note = noteOpt.get();
-                    String preview = note.getContent() != null && note.getContent().length() > 50
-                            ? note.getContent().substring(0, 50) + "..."
-                            : note.getContent();
-                    yield new LinkedItem(type, id, note.getTitle(), preview, linkId);
-                }
-                yield null;
-            }
-            case FILE -> {
-                var fileOpt = fileRepository.findById(id);
-                if (fileOpt.isPresent()) {
-                    FileReference file = fileOpt.get();
-                    yield new LinkedItem(type, id, file.getName(), file.getType(), linkId);
-                }
-                yield null;
-            }
-        };
+    public int getBacklinkCount(ItemType type, Long id) {
+        return graph().backlinkCount(type, id);
     }
 
-    public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+    /**
+     * Tasks whose title contains the text, filtered and limited in SQL.
+     *
+     * @param excludeId a task to leave out, or null
+     */
+    public List<Task> findTasks(String text, Long excludeId, int limit) {
+        return taskRepository.findByTitleContaining(text, excludeId, limit);
     }
 
-    public List<Note> getAllNotes() {
-        return noteRepository.findAll();
+    public List<NoteSummary> findNotes(String text, Long excludeId, int limit) {
+        return noteRepository.findSummariesByTitleContaining(text, excludeId, limit);
     }
 
-    public List<FileReference> getAllFiles() {
-        return fileRepository.findAll();
+    public List<FileReference> findFiles(String text, Long excludeId, int limit) {
+        return fileRepository.findByNameContaining(text, excludeId, limit);
     }
 }
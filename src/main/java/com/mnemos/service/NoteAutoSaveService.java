@@ -0,0 +1,195 @@
+package com.mnemos.service;
+
+import com.mnemos.repository.NoteRepository;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Debounced note autosave on one shared thread. Edits to a note replace its
+ * pending snapshot and push the save back; the write happens once typing
+ * pauses. All saves run on the same thread, so a note's writes land in edit
+ * order, and flushes queue behind any save already running. Saves append
+ * deltas to the note's revision log; a flush also folds them into a
+ * snapshot, so the notes table is current once the editor is left.
+ */
+public class NoteAutoSaveService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteAutoSaveService.class);
+    private static final NoteAutoSaveService INSTANCE = new NoteAutoSaveService();
+
+    private static final long DEBOUNCE_MILLIS = 800;
+    private static final long FLUSH_TIMEOUT_SECONDS = 5;
+
+    public enum State {
+        UNSAVED, SAVING, SAVED, FAILED
+    }
+
+    /**
+     * Save progress for one note, delivered on the JavaFX thread.
+     */
+    @FunctionalInterface
+    public interface StateListener {
+        void onStateChanged(long noteId, State state, Instant updatedAt);
+    }
+
+    private static class Pending {
+        String title;
+        String content;
+        ScheduledFuture<?> future;
+    }
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "NoteAutoSave");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final NoteRepository repository = new NoteRepository();
+    // Guarded by this
+    private final Map<Long, Pending> pending = new HashMap<>();
+    private final List<StateListener> listeners = new CopyOnWriteArrayList<>();
+    // Notes saved since their last compaction; only touched on the save thread
+    private final Set<Long> uncompacted = new HashSet<>();
+
+    private NoteAutoSaveService() {
+    }
+
+    public static NoteAutoSaveService getInstance() {
+        return INSTANCE;
+    }
+
+    public void addStateListener(StateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeStateListener(StateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Record the latest text of a note and save it once edits pause.
+     */
+    public void scheduleSave(long noteId, String title, String content) {
+        synchronized (this) {
+            Pending entry = pending.computeIfAbsent(noteId, id -> new Pending());
+            entry.title = title == null || title.isBlank() ? "Untitled Note" : title;
+            entry.content = content;
+            if (entry.future != null) {
+                entry.future.cancel(false);
+            }
+            entry.future = scheduler.schedule(() -> save(noteId), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        publish(noteId, State.UNSAVED, null);
+    }
+
+    /**
+     * Drop any unsaved edits, e.g. because the note was deleted.
+     */
+    public synchronized void discard(long noteId) {
+        Pending entry = pending.remove(noteId);
+        if (entry != null && entry.future != null) {
+            entry.future.cancel(false);
+        }
+    }
+
+    public synchronized boolean hasPendingChanges(long noteId) {
+        return pending.containsKey(noteId);
+    }
+
+    /**
+     * Save the note now if it has unsaved edits, and wait for the write.
+     */
+    public void flush(long noteId) {
+        await(scheduler.submit(() -> {
+            save(noteId);
+            compact(noteId);
+        }));
+    }
+
+    /**
+     * Save every note with unsaved edits and wait for the writes. Called
+     * when the window hides and before exit.
+     */
+    public void flushAll() {
+        await(scheduler.submit(() -> {
+            List<Long> ids;
+            synchronized (this) {
+                ids = new ArrayList<>(pending.keySet());
+            }
+            for (long id : ids) {
+                save(id);
+            }
+            for (long id : new ArrayList<>(uncompacted)) {
+                compact(id);
+            }
+        }));
+    }
+
+    private void save(long noteId) {
+        Pending entry;
+        synchronized (this) {
+            entry = pending.remove(noteId);
+            if (entry == null) {
+                return;
+            }
+            if (entry.future != null) {
+                entry.future.cancel(false);
+            }
+        }
+        publish(noteId, State.SAVING, null);
+        // Blocks this thread, not the FX thread, while the writer thread runs the update
+        Instant updatedAt = repository.update(noteId, entry.title, entry.content);
+        if (updatedAt != null) {
+            uncompacted.add(noteId);
+            SearchIndexService.getInstance().indexNote(noteId, entry.title, entry.content);
+        }
+        publish(noteId, updatedAt != null ? State.SAVED : State.FAILED, updatedAt);
+    }
+
+    private void compact(long noteId) {
+        if (uncompacted.remove(noteId)) {
+            repository.compact(noteId);
+        }
+    }
+
+    private void await(Future<?> future) {
+        try {
+            future.get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Error flushing note autosave", e);
+        }
+    }
+
+    private void publish(long noteId, State state, Instant updatedAt) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Runnable notify = () -> listeners.forEach(listener -> listener.onStateChanged(noteId, state, updatedAt));
+        if (Platform.isFxApplicationThread()) {
+            notify.run();
+        } else {
+            try {
+                Platform.runLater(notify);
+            } catch (IllegalStateException e) {
+                // FX toolkit already shut down at exit
+            }
+        }
+    }
+}
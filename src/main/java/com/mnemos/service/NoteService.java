@@ -1,6 +1,8 @@
 package com.mnemos.service;
 
+import com.mnemos.model.Link.ItemType;
 import com.mnemos.model.Note;
+import com.mnemos.model.NoteSummary;
 import com.mnemos.repository.NoteRepository;
 import java.util.List;
 import java.util.Optional;
@@ -16,18 +18,45 @@ public class NoteService {
         if (note.getTitle() == null || note.getTitle().isBlank()) {
             note.setTitle("Untitled Note");
         }
-        return repository.save(note);
+        Note saved = repository.save(note);
+        if (saved.getId() != null) {
+            SearchIndexService.getInstance().indexNote(saved.getId(), saved.getTitle(), saved.getContent());
+        }
+        return saved;
     }
 
     public List<Note> getAllNotes() {
         return repository.findAll();
     }
 
+    public List<Note> getNotesPage(Note after, int limit) {
+        return repository.findPage(after, limit);
+    }
+
+    /**
+     * Keyset page of note summaries for list views; bodies are not loaded.
+     */
+    public List<NoteSummary> getNoteSummaryPage(NoteSummary after, int limit) {
+        return repository.findSummaryPage(after, limit);
+    }
+
     public Optional<Note> getNoteById(Long id) {
         return repository.findById(id);
     }
 
+    /**
+     * Saved revisions of a note, newest first.
+     */
+    public List<NoteRepository.Revision> getRevisions(long noteId) {
+        return repository.findRevisions(noteId);
+    }
+
+    public Optional<String> getContentAt(long noteId, int revision) {
+        return repository.findContentAt(noteId, revision);
+    }
+
     public void deleteNote(Long id) {
         repository.deleteById(id);
+        SearchIndexService.getInstance().remove(ItemType.NOTE, id);
     }
 }
@@ -0,0 +1,233 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Task;
+import com.mnemos.model.Task.RecurrenceType;
+import com.mnemos.model.Task.RecurrenceUnit;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A task's recurrence settings compiled into a sequence of due dates. The
+ * series starts at the task's own due date, then repeats every
+ * {@code interval} days, weeks or months; weekly rules may name weekdays.
+ * It ends after {@code recurrenceEndDate} or once
+ * {@code recurrenceMaxOccurrences} dates have been produced, counting the
+ * task itself. Iteration can start at any date without walking the series
+ * from the beginning.
+ */
+public final class RecurrenceRule implements Iterable<LocalDate> {
+    private final LocalDate start;
+    private final RecurrenceUnit unit;
+    private final int interval;
+    // Day offsets from the start of a period, ascending; a single 0 unless weekdays are set
+    private final int[] offsets;
+    // First day of period 0: the Monday of the start week for weekly rules, else the start
+    private final LocalDate origin;
+    // Offsets in period 0 that fall on or before the start
+    private final int skippedInFirstPeriod;
+    private final LocalDate until;
+    private final int count;
+
+    private RecurrenceRule(LocalDate start, RecurrenceUnit unit, int interval, int weekdayMask, LocalDate until,
+            int count) {
+        this.start = start;
+        this.unit = unit;
+        this.interval = Math.max(1, interval);
+        this.until = until;
+        this.count = Math.max(0, count);
+
+        if (unit == RecurrenceUnit.WEEKS) {
+            int mask = weekdayMask != 0 ? weekdayMask : 1 << (start.getDayOfWeek().getValue() - 1);
+            this.offsets = new int[Integer.bitCount(mask)];
+            for (int day = 0, i = 0; day < 7; day++) {
+                if ((mask & (1 << day)) != 0) {
+                    offsets[i++] = day;
+                }
+            }
+            this.origin = start.minusDays(start.getDayOfWeek().getValue() - 1);
+        } else {
+            this.offsets = new int[] { 0 };
+            this.origin = start;
+        }
+
+        int skipped = 0;
+        for (int offset : offsets) {
+            if (!origin.plusDays(offset).isAfter(start)) {
+                skipped++;
+            }
+        }
+        this.skippedInFirstPeriod = skipped;
+    }
+
+    /**
+     * The task's rule, anchored at its due date or today when it has none.
+     *
+     * @return null if the task does not recur
+     */
+    public static RecurrenceRule of(Task task) {
+        RecurrenceType type = task.getRecurrenceType();
+        if (type == null || type == RecurrenceType.NONE) {
+            return null;
+        }
+        RecurrenceUnit unit = switch (type) {
+            case DAILY -> RecurrenceUnit.DAYS;
+            case WEEKLY -> RecurrenceUnit.WEEKS;
+            default -> task.getRecurrenceUnit() != null ? task.getRecurrenceUnit() : RecurrenceUnit.DAYS;
+        };
+        LocalDate start = task.getDueDate() != null ? task.getDueDate() : LocalDate.now();
+        return new RecurrenceRule(start, unit, task.getRecurrenceInterval(), parseWeekdays(task.getRecurrenceDays()),
+                task.getRecurrenceEndDate(), task.getRecurrenceMaxOccurrences());
+    }
+
+    /**
+     * @param days comma-separated three-letter day names, e.g. "MON,WED,FRI"
+     * @return one bit per weekday, Monday lowest
+     */
+    static int parseWeekdays(String days) {
+        int mask = 0;
+        if (days == null || days.isBlank()) {
+            return mask;
+        }
+        for (String day : days.split(",")) {
+            String key = day.trim().toUpperCase();
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                if (!key.isEmpty() && dayOfWeek.name().startsWith(key)) {
+                    mask |= 1 << (dayOfWeek.getValue() - 1);
+                }
+            }
+        }
+        return mask;
+    }
+
+    public LocalDate start() {
+        return start;
+    }
+
+    /**
+     * @return the first date of the series after the given one, or null if it has ended
+     */
+    public LocalDate nextAfter(LocalDate date) {
+        Iterator<LocalDate> it = iterator(date.plusDays(1));
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Dates of the series in [from, to], inclusive.
+     */
+    public List<LocalDate> between(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        Iterator<LocalDate> it = iterator(from);
+        while (it.hasNext()) {
+            LocalDate date = it.next();
+            if (date.isAfter(to)) {
+                break;
+            }
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    @Override
+    public Iterator<LocalDate> iterator() {
+        return iterator(start);
+    }
+
+    /**
+     * Dates of the series on or after the given date.
+     */
+    public Iterator<LocalDate> iterator(LocalDate from) {
+        return new Occurrences(from);
+    }
+
+    private LocalDate dateAt(long period, int index) {
+        return switch (unit) {
+            case DAYS -> origin.plusDays(period * interval);
+            case WEEKS -> origin.plusWeeks(period * interval).plusDays(offsets[index]);
+            // Always from the origin, so a 31st does not drift to the 28th after February
+            case MONTHS -> origin.plusMonths(period * interval);
+        };
+    }
+
+    /**
+     * Position within the series, the start being 0. Only valid for dates after the start.
+     */
+    private long ordinalAt(long period, int index) {
+        return period * offsets.length + index - skippedInFirstPeriod + 1;
+    }
+
+    private class Occurrences implements Iterator<LocalDate> {
+        private boolean atStart;
+        private long period;
+        private int index;
+        private LocalDate next;
+
+        Occurrences(LocalDate from) {
+            if (!from.isAfter(start)) {
+                atStart = true;
+                next = start;
+                return;
+            }
+            // Jump to about the right period, then step to the first date on or after 'from'
+            long elapsed = switch (unit) {
+                case DAYS -> ChronoUnit.DAYS.between(origin, from);
+                case WEEKS -> ChronoUnit.WEEKS.between(origin, from);
+                case MONTHS -> ChronoUnit.MONTHS.between(origin, from);
+            };
+            period = Math.max(0, elapsed / interval - 1);
+            index = 0;
+            LocalDate date = dateAt(period, index);
+            while (date.isBefore(from) || !date.isAfter(start)) {
+                step();
+                date = dateAt(period, index);
+            }
+            next = date;
+        }
+
+        private void step() {
+            if (++index == offsets.length) {
+                index = 0;
+                period++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                return false;
+            }
+            if (until != null && next.isAfter(until)) {
+                return false;
+            }
+            return count == 0 || atStart || ordinalAt(period, index) < count;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocalDate current = next;
+            if (atStart) {
+                atStart = false;
+                // First scheduled date after the start
+                period = 0;
+                index = 0;
+                LocalDate date = dateAt(period, index);
+                while (!date.isAfter(start)) {
+                    step();
+                    date = dateAt(period, index);
+                }
+                next = date;
+            } else {
+                step();
+                next = dateAt(period, index);
+            }
+            return current;
+        }
+    }
+}
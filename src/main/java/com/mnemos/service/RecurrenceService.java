@@ -0,0 +1,144 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Task;
+import com.mnemos.repository.TaskOccurrenceRepository;
+import com.mnemos.repository.TaskOccurrenceRepository.Occurrence;
+import com.mnemos.repository.TaskRepository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the task_occurrences calendar in step with recurring tasks. Only
+ * the pending head of each series is expanded, from its due date up to a
+ * shared horizon; the horizon moves forward when a range query reaches past
+ * it, expanding just the new stretch of each series.
+ * <p>
+ * Remembers the settings each stored series was expanded from, so saves
+ * that cannot move a task's dates, e.g. a title edit or any change to a
+ * one-off task, do not touch the calendar.
+ */
+public class RecurrenceService {
+    private static final RecurrenceService INSTANCE = new RecurrenceService();
+    private static final int HORIZON_DAYS = 90;
+    // Stored before this run; rewritten at the task's next save
+    private static final Series UNKNOWN = new Series(null, null, 0, null, null, null, 0);
+
+    private final TaskOccurrenceRepository occurrenceRepository = new TaskOccurrenceRepository();
+    private final TaskRepository taskRepository = new TaskRepository();
+
+    // Series each task's stored occurrences come from; tasks without any are absent. Guarded by this
+    private Map<Long, Series> stored;
+
+    /**
+     * The task fields its occurrence dates depend on.
+     */
+    private record Series(LocalDate dueDate, Task.RecurrenceType type, int interval, Task.RecurrenceUnit unit,
+            String days, LocalDate endDate, int maxOccurrences) {
+
+        /**
+         * @return null unless the task is the pending head of a recurring series
+         */
+        static Series of(Task task) {
+            if (task.getStatus() != Task.Status.PENDING || RecurrenceRule.of(task) == null) {
+                return null;
+            }
+            return new Series(task.getDueDate(), task.getRecurrenceType(), task.getRecurrenceInterval(),
+                    task.getRecurrenceUnit(), task.getRecurrenceDays(), task.getRecurrenceEndDate(),
+                    task.getRecurrenceMaxOccurrences());
+        }
+    }
+
+    private RecurrenceService() {
+    }
+
+    public static RecurrenceService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Rewrite the stored occurrences of a saved task if its due date,
+     * recurrence or status changed. Completed and non-recurring tasks end
+     * up with none.
+     */
+    public synchronized void refresh(Task task) {
+        if (task.getId() == null) {
+            return;
+        }
+        Series series = Series.of(task);
+        if (Objects.equals(series, stored().get(task.getId()))) {
+            return;
+        }
+        LocalDate horizon = occurrenceRepository.findHorizon();
+        if (horizon == null) {
+            // Not built yet; the first range query expands every series
+            return;
+        }
+        RecurrenceRule rule = series == null ? null : RecurrenceRule.of(task);
+        List<LocalDate> dates = rule == null ? List.of() : rule.between(rule.start(), horizon);
+        occurrenceRepository.replaceForTask(task.getId(), dates);
+        if (series == null) {
+            stored.remove(task.getId());
+        } else {
+            stored.put(task.getId(), series);
+        }
+    }
+
+    /**
+     * Drop what is known about deleted tasks; their rows go with them.
+     */
+    public synchronized void forget(Collection<Long> taskIds) {
+        if (stored != null) {
+            taskIds.forEach(stored::remove);
+        }
+    }
+
+    /**
+     * Everything due in [from, to], including future dates of recurring
+     * tasks that have no task row yet.
+     */
+    public List<Occurrence> getOccurrences(LocalDate from, LocalDate to) {
+        ensureHorizon(to);
+        return occurrenceRepository.findBetween(from, to);
+    }
+
+    private Map<Long, Series> stored() {
+        if (stored == null) {
+            stored = new HashMap<>();
+            for (long id : occurrenceRepository.findTaskIds()) {
+                stored.put(id, UNKNOWN);
+            }
+        }
+        return stored;
+    }
+
+    private synchronized void ensureHorizon(LocalDate to) {
+        LocalDate horizon = occurrenceRepository.findHorizon();
+        if (horizon != null && !to.isAfter(horizon)) {
+            return;
+        }
+        LocalDate target = LocalDate.now().plusDays(HORIZON_DAYS);
+        if (to.isAfter(target)) {
+            target = to;
+        }
+
+        Map<Long, List<LocalDate>> added = new HashMap<>();
+        for (Task task : taskRepository.findPendingRecurring()) {
+            RecurrenceRule rule = RecurrenceRule.of(task);
+            LocalDate from = horizon == null ? rule.start() : horizon.plusDays(1);
+            List<LocalDate> dates = rule.between(from, target);
+            if (!dates.isEmpty()) {
+                added.put(task.getId(), dates);
+            }
+        }
+        occurrenceRepository.extend(added, target, horizon == null);
+        if (horizon == null) {
+            stored = null;
+        } else {
+            added.keySet().forEach(id -> stored().putIfAbsent(id, UNKNOWN));
+        }
+    }
+}
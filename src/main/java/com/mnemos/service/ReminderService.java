@@ -1,6 +1,7 @@
 package com.mnemos.service;
 
 import com.mnemos.model.Task;
+import com.mnemos.util.TimingWheel;
 import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,26 +11,46 @@ import java.awt.TrayIcon.MessageType;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.util.Map;
-import java.util.concurrent.*;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for scheduling and triggering task reminders.
+ * Pending reminders are task ids in a {@link TimingWheel} ticked once a
+ * second by a single daemon thread. Only the next few hours of reminders
+ * are loaded; a periodic refill reads the next stretch from the database.
  */
 public class ReminderService {
     private static final Logger logger = LoggerFactory.getLogger(ReminderService.class);
     private static final ReminderService INSTANCE = new ReminderService();
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
-    private final Map<Long, ScheduledFuture<?>> scheduledReminders = new ConcurrentHashMap<>();
+    private static final long TICK_MILLIS = 1000;
+    // One revolution is a little over an hour; later reminders wait out extra rounds in their slot
+    private static final int WHEEL_SLOTS = 4096;
+    private static final int MAX_TITLES_PER_NOTIFICATION = 5;
+    // Only reminders due this soon are held in memory
+    private static final long WINDOW_MILLIS = 6 * 60 * 60 * 1000L;
+    private static final long REFILL_INTERVAL_MILLIS = 60 * 60 * 1000L;
+
+    private final TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SLOTS, System.currentTimeMillis());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ReminderService");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final TaskService taskService = new TaskService();
+    // Reminders before this time are in the wheel; guarded by the wheel lock
+    private long loadedUntil = System.currentTimeMillis();
 
     private TrayIcon trayIcon;
     private boolean traySupported = false;
 
     private ReminderService() {
         initializeTray();
+        scheduler.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::loadPendingReminders, 0, REFILL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     public static ReminderService getInstance() {
@@ -82,35 +103,54 @@ public class ReminderService {
     }
 
     /**
-     * Schedule a notification for the given task.
+     * Schedule a notification for the given task, replacing any earlier one.
+     * A time that has already passed fires on the next tick. The reminder
+     * must already be saved, since times past the loaded window are picked
+     * up from the database later.
      */
     public void scheduleNotification(Task task, LocalDateTime reminderTime) {
-        // Cancel any existing reminder for this task
-        cancelReminder(task.getId());
-
-        long delayMs = ChronoUnit.MILLIS.between(LocalDateTime.now(), reminderTime);
-
-        if (delayMs <= 0) {
-            // Time already passed, trigger immediately
-            triggerNotification(task);
-            return;
+        long deadline = reminderTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (wheel) {
+            if (deadline < loadedUntil) {
+                wheel.schedule(task.getId(), deadline);
+            } else {
+                // Beyond the loaded window; a later refill reads it from the database
+                wheel.cancel(task.getId());
+            }
         }
-
-        ScheduledFuture<?> future = scheduler.schedule(() -> {
-            triggerNotification(task);
-            scheduledReminders.remove(task.getId());
-        }, delayMs, TimeUnit.MILLISECONDS);
-
-        scheduledReminders.put(task.getId(), future);
     }
 
     /**
      * Cancel a scheduled reminder.
      */
     public void cancelReminder(Long taskId) {
-        ScheduledFuture<?> existing = scheduledReminders.remove(taskId);
-        if (existing != null) {
-            existing.cancel(false);
+        synchronized (wheel) {
+            wheel.cancel(taskId);
+        }
+    }
+
+    /**
+     * Fire everything that fell due since the last tick. Tasks are loaded
+     * in one query at firing time, so titles are current and deleted tasks
+     * are skipped; reminders due together share one notification.
+     */
+    private void tick() {
+        long[] due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        if (due.length == 0) {
+            return;
+        }
+        try {
+            List<Task> tasks = taskService.getTasksById(due);
+            if (tasks.size() == 1) {
+                triggerNotification(tasks.get(0));
+            } else if (!tasks.isEmpty()) {
+                triggerNotification(tasks);
+            }
+        } catch (Exception e) {
+            logger.error("Error firing reminders", e);
         }
     }
 
@@ -118,9 +158,27 @@ public class ReminderService {
      * Trigger a notification for the task.
      */
     public void triggerNotification(Task task) {
-        String title = "Task Reminder";
-        String message = "📌 " + task.getTitle();
+        showNotification("Task Reminder", "📌 " + task.getTitle());
+        logger.info("Notification triggered for task: {}", task.getTitle());
+    }
+
+    /**
+     * Trigger one notification for several tasks due at the same time.
+     */
+    public void triggerNotification(List<Task> tasks) {
+        StringBuilder message = new StringBuilder();
+        int shown = Math.min(tasks.size(), MAX_TITLES_PER_NOTIFICATION);
+        for (int i = 0; i < shown; i++) {
+            message.append("📌 ").append(tasks.get(i).getTitle()).append('\n');
+        }
+        if (tasks.size() > shown) {
+            message.append("and ").append(tasks.size() - shown).append(" more");
+        }
+        showNotification(tasks.size() + " Task Reminders", message.toString().strip());
+        logger.info("Notification triggered for {} tasks", tasks.size());
+    }
 
+    private void showNotification(String title, String message) {
         if (traySupported && trayIcon != null) {
             // Use system tray notification
             trayIcon.displayMessage(title, message, MessageType.INFO);
@@ -130,13 +188,11 @@ public class ReminderService {
                 javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
                         javafx.scene.control.Alert.AlertType.INFORMATION);
                 alert.setTitle(title);
-                alert.setHeaderText("Task Reminder");
+                alert.setHeaderText(title);
                 alert.setContentText(message);
                 alert.show();
             });
         }
-
-        logger.info("Notification triggered for task: {}", task.getTitle());
     }
 
     /**
@@ -165,25 +221,27 @@ public class ReminderService {
     }
 
     /**
-     * Load and reschedule all pending reminders from the database.
-     * Should be called on app startup.
+     * Load reminders due within the next window. Runs on startup and then
+     * every {@link #REFILL_INTERVAL_MILLIS}; each run only reads the part of
+     * the window not loaded yet, through the reminder_at index.
      */
     public void loadPendingReminders() {
-        for (Task task : taskService.getAllTasks()) {
-            String reminderStr = task.getReminderDate();
-            if (reminderStr != null && !reminderStr.isEmpty()) {
-                try {
-                    LocalDateTime reminderTime = LocalDateTime.parse(reminderStr,
-                            DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                    if (reminderTime.isAfter(LocalDateTime.now())) {
-                        scheduleNotification(task, reminderTime);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Could not parse reminder date for task {}: {}", task.getId(), reminderStr);
+        try {
+            synchronized (wheel) {
+                long until = System.currentTimeMillis() + WINDOW_MILLIS;
+                if (until <= loadedUntil) {
+                    return;
+                }
+                List<long[]> reminders = taskService.getRemindersBetween(loadedUntil, until);
+                for (long[] reminder : reminders) {
+                    wheel.schedule(reminder[0], reminder[1]);
                 }
+                loadedUntil = until;
+                logger.info("Loaded {} pending reminder(s)", reminders.size());
             }
+        } catch (Exception e) {
+            logger.error("Error loading reminders", e);
         }
-        logger.info("Loaded pending reminders");
     }
 
     /**
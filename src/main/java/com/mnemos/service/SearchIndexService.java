@@ -0,0 +1,243 @@
+package com.mnemos.service;
+
+import com.mnemos.model.FileReference;
+import com.mnemos.model.Link.ItemType;
+import com.mnemos.model.Note;
+import com.mnemos.model.Task;
+import com.mnemos.repository.FileRepository;
+import com.mnemos.repository.NoteRepository;
+import com.mnemos.repository.SearchRepository;
+import com.mnemos.repository.TaskRepository;
+import com.mnemos.util.InvertedIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory word index over task titles, notes and file names for
+ * search-as-you-type. The service layer reports every save and delete, so
+ * the index is updated in place and never rebuilt while the app runs.
+ * <p>
+ * At exit the index is written to a snapshot file whose token is stored in
+ * app_settings. At startup that snapshot is memory-mapped instead of
+ * reading every note back from the database. The token is cleared once the
+ * snapshot is loaded, so after a crash the next start rebuilds from the
+ * database rather than trusting a stale snapshot.
+ */
+public class SearchIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+    private static final SearchIndexService INSTANCE = new SearchIndexService();
+
+    private static final String SNAPSHOT_PREFIX = "mnemos-search-";
+    private static final String SNAPSHOT_SUFFIX = ".idx";
+    // Compact once tombstones outnumber live documents, e.g. after many autosaves
+    private static final int MIN_COMPACT_TOMBSTONES = 1000;
+
+    /**
+     * One matching item, best first.
+     */
+    public record Match(ItemType type, long id, String title) {
+    }
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "SearchIndexLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SearchRepository repository = new SearchRepository();
+
+    // All guarded by this
+    private InvertedIndex index = InvertedIndex.empty();
+    private boolean ready = false;
+    private boolean started = false;
+    // Changes made while the index loads, replayed onto it once it is in place
+    private List<Consumer<InvertedIndex>> pending = new ArrayList<>();
+
+    private SearchIndexService() {
+    }
+
+    public static SearchIndexService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Load the snapshot, or rebuild from the database, in the background.
+     * Searches return nothing until it is ready.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        loader.execute(this::load);
+    }
+
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Items with a word starting with each word of the query, ranked by
+     * title matches and then most recently indexed first.
+     */
+    public List<Match> search(String query, int limit) {
+        List<InvertedIndex.Hit> hits;
+        synchronized (this) {
+            if (!ready) {
+                return List.of();
+            }
+            hits = index.search(query, limit);
+        }
+        List<Match> matches = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            matches.add(new Match(SearchRepository.typeOfKey(hit.key()), SearchRepository.idOfKey(hit.key()),
+                    hit.title()));
+        }
+        return matches;
+    }
+
+    public void indexTask(Task task) {
+        if (task.getId() != null) {
+            long key = SearchRepository.keyOf(ItemType.TASK, task.getId());
+            String title = task.getTitle();
+            apply(index -> index.put(key, title, null));
+        }
+    }
+
+    public void indexNote(long id, String title, String content) {
+        long key = SearchRepository.keyOf(ItemType.NOTE, id);
+        apply(index -> index.put(key, title, content));
+    }
+
+    public void indexFile(FileReference file) {
+        if (file.getId() != null) {
+            long key = SearchRepository.keyOf(ItemType.FILE, file.getId());
+            String name = file.getName();
+            apply(index -> index.put(key, name, null));
+        }
+    }
+
+    public void remove(ItemType type, long id) {
+        long key = SearchRepository.keyOf(type, id);
+        apply(index -> index.remove(key));
+    }
+
+    private synchronized void apply(Consumer<InvertedIndex> change) {
+        if (!ready) {
+            pending.add(change);
+            return;
+        }
+        change.accept(index);
+        if (index.deletedCount() > Math.max(MIN_COMPACT_TOMBSTONES, index.size())) {
+            index = index.compacted();
+        }
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        String token = repository.findSnapshotToken();
+        InvertedIndex loaded = null;
+        if (token != null) {
+            try {
+                loaded = InvertedIndex.open(snapshotPath(token));
+            } catch (IOException e) {
+                logger.warn("Search index snapshot unusable, rebuilding", e);
+            }
+        }
+        // From here on the database can change under the snapshot
+        repository.saveSnapshotToken(null);
+        if (loaded == null) {
+            token = null;
+            try {
+                loaded = rebuild();
+            } catch (RuntimeException e) {
+                // Still go ready, so changes stop queueing and new items are found
+                logger.error("Error rebuilding search index", e);
+                loaded = InvertedIndex.empty();
+            }
+        }
+
+        synchronized (this) {
+            index = loaded;
+            // Changes made meanwhile may already be in a rebuilt index; applying them again is harmless
+            pending.forEach(change -> change.accept(index));
+            pending = null;
+            ready = true;
+        }
+        logger.info("Search index ready with {} items in {} ms", loaded.size(), System.currentTimeMillis() - start);
+        deleteSnapshotsExcept(token);
+    }
+
+    private InvertedIndex rebuild() {
+        InvertedIndex built = InvertedIndex.empty();
+        try (Stream<Task> tasks = new TaskRepository().stream()) {
+            tasks.forEach(task -> built.put(SearchRepository.keyOf(ItemType.TASK, task.getId()), task.getTitle(),
+                    null));
+        }
+        try (Stream<Note> notes = new NoteRepository().stream()) {
+            notes.forEach(note -> built.put(SearchRepository.keyOf(ItemType.NOTE, note.getId()), note.getTitle(),
+                    note.getContent()));
+        }
+        try (Stream<FileReference> files = new FileRepository().stream()) {
+            files.forEach(file -> built.put(SearchRepository.keyOf(ItemType.FILE, file.getId()), file.getName(),
+                    null));
+        }
+        return built;
+    }
+
+    /**
+     * Write the index to a new snapshot and make it the one loaded at the
+     * next start. Called at exit.
+     */
+    public synchronized void saveSnapshot() {
+        if (!ready) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        try {
+            index.write(snapshotPath(token));
+            if (repository.saveSnapshotToken(token)) {
+                logger.info("Saved search index snapshot with {} items", index.size());
+            }
+        } catch (IOException e) {
+            logger.error("Error saving search index snapshot", e);
+        }
+    }
+
+    private static Path snapshotPath(String token) {
+        return Path.of(SNAPSHOT_PREFIX + token + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Remove older snapshots. One that is still mapped may refuse to go on
+     * some platforms; it is retried at the next start.
+     */
+    private static void deleteSnapshotsExcept(String token) {
+        Path keep = token == null ? null : snapshotPath(token);
+        try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(Path.of("."),
+                SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX + "*")) {
+            for (Path snapshot : snapshots) {
+                if (keep == null || !snapshot.getFileName().equals(keep.getFileName())) {
+                    try {
+                        Files.deleteIfExists(snapshot);
+                    } catch (IOException e) {
+                        logger.debug("Could not delete old search index snapshot {}", snapshot, e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Could not list search index snapshots", e);
+        }
+    }
+}
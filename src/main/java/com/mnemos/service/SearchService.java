@@ -0,0 +1,78 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Link.ItemType;
+import com.mnemos.repository.SearchRepository;
+import com.mnemos.repository.SearchRepository.SearchResult;
+import java.util.List;
+
+/**
+ * Full-text search over tasks, notes and files. Each word typed is matched
+ * as a prefix of an indexed word, all words must match, and results come
+ * back ranked by BM25 with the matches marked.
+ */
+public class SearchService {
+    /** Marks the start of a matched term in titles and snippets. */
+    public static final String MATCH_START = "\uE000";
+    /** Marks the end of a matched term in titles and snippets. */
+    public static final String MATCH_END = "\uE001";
+
+    private static final int SNIPPET_TOKENS = 12;
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SearchRepository repository;
+
+    public SearchService() {
+        this.repository = new SearchRepository();
+    }
+
+    public List<SearchResult> search(String text) {
+        return search(text, null, DEFAULT_LIMIT);
+    }
+
+    /**
+     * @param type only items of this type, or null for all
+     */
+    public List<SearchResult> search(String text, ItemType type, int limit) {
+        String match = toMatchExpression(text);
+        if (match.isEmpty()) {
+            return List.of();
+        }
+        return repository.search(match, type, MATCH_START, MATCH_END, SNIPPET_TOKENS, limit);
+    }
+
+    /**
+     * Text without match markers, for display where highlighting is not drawn.
+     */
+    public static String stripMarkers(String text) {
+        return text == null ? null : text.replace(MATCH_START, "").replace(MATCH_END, "");
+    }
+
+    /**
+     * Turn free text into an FTS5 query: every run of letters and digits
+     * becomes a quoted prefix term, so user input can never be parsed as
+     * query syntax.
+     */
+    static String toMatchExpression(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.codePointAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (!match.isEmpty()) {
+                    match.append(' ');
+                }
+                match.append('"').append(text, start, i).append("\"*");
+                start = -1;
+            }
+            if (i < text.length() && Character.isHighSurrogate(text.charAt(i))) {
+                i++;
+            }
+        }
+        return match.toString();
+    }
+}
@@ -1,18 +1,32 @@
 package com.mnemos.service;
 
+import com.mnemos.model.Link.ItemType;
 import com.mnemos.repository.TaskRepository;
 import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * Deletes completed tasks a few minutes after completion. Instead of polling,
+ * it sleeps until the earliest completed_at expires, deletes what is due in
+ * bounded batches through the (status, completed_at) index, and then sleeps
+ * until the next expiry. Completing a task wakes it if it was idle.
+ */
 public class TaskCleanupService {
     private static final Logger logger = LoggerFactory.getLogger(TaskCleanupService.class);
-    private static final long CLEANUP_DELAY_MINUTES = 5;
-    private static final long CHECK_INTERVAL_MINUTES = 1; // Check every minute
+    private static final TaskCleanupService INSTANCE = new TaskCleanupService();
+
+    private static final long CLEANUP_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final int BATCH_SIZE = 500;
 
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
         Thread thread = new Thread(r, "TaskCleanupService");
@@ -21,31 +35,103 @@ public class TaskCleanupService {
     });
 
     private final TaskRepository taskRepository = new TaskRepository();
-    private Runnable onTasksDeletedCallback;
+    private final List<Consumer<long[]>> deletedListeners = new CopyOnWriteArrayList<>();
+    private ScheduledFuture<?> nextRun;
+    private long nextRunAt;
+    private boolean started = false;
+
+    private TaskCleanupService() {
+    }
 
-    public void start() {
+    public static TaskCleanupService getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
         logger.info("Starting TaskCleanupService - will delete completed tasks after {} minutes",
-                CLEANUP_DELAY_MINUTES);
-
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                int deletedCount = taskRepository.deleteOldCompletedTasks(CLEANUP_DELAY_MINUTES);
-                if (deletedCount > 0) {
-                    logger.info("Auto-deleted {} completed task(s)", deletedCount);
-
-                    // Notify UI on JavaFX thread
-                    if (onTasksDeletedCallback != null) {
-                        Platform.runLater(onTasksDeletedCallback);
-                    }
+                TimeUnit.MILLISECONDS.toMinutes(CLEANUP_DELAY_MILLIS));
+        scheduleAt(System.currentTimeMillis());
+    }
+
+    /**
+     * Listen for auto-deleted tasks. Called on the JavaFX thread with the
+     * ids of each deleted batch.
+     */
+    public void addDeletedListener(Consumer<long[]> listener) {
+        deletedListeners.add(listener);
+    }
+
+    public void removeDeletedListener(Consumer<long[]> listener) {
+        deletedListeners.remove(listener);
+    }
+
+    /**
+     * A task was just marked completed; make sure a run is due when it expires.
+     */
+    public void onTaskCompleted() {
+        scheduleAt(System.currentTimeMillis() + CLEANUP_DELAY_MILLIS);
+    }
+
+    /**
+     * Schedule a run at the given time unless one is already due by then.
+     */
+    private synchronized void scheduleAt(long time) {
+        if (!started || scheduler.isShutdown()) {
+            return;
+        }
+        if (nextRun != null && !nextRun.isDone() && nextRunAt <= time) {
+            return;
+        }
+        if (nextRun != null) {
+            nextRun.cancel(false);
+        }
+        nextRunAt = time;
+        nextRun = scheduler.schedule(this::run, Math.max(0, time - System.currentTimeMillis()),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        synchronized (this) {
+            // Completions from here on schedule their own run
+            nextRun = null;
+        }
+        try {
+            long cutoff = System.currentTimeMillis() - CLEANUP_DELAY_MILLIS;
+            long[] deleted;
+            do {
+                // Each batch is its own short write, so other writes can run in between
+                deleted = taskRepository.deleteCompletedBefore(cutoff, BATCH_SIZE);
+                if (deleted.length > 0) {
+                    onDeleted(deleted);
                 }
-            } catch (Exception e) {
-                logger.error("Error during task cleanup", e);
+            } while (deleted.length == BATCH_SIZE);
+
+            Long earliest = taskRepository.findEarliestCompletedAt();
+            if (earliest != null) {
+                // Never spin if rows that should be gone could not be deleted
+                scheduleAt(Math.max(earliest + CLEANUP_DELAY_MILLIS, System.currentTimeMillis() + RETRY_DELAY_MILLIS));
             }
-        }, CHECK_INTERVAL_MINUTES, CHECK_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            logger.error("Error during task cleanup", e);
+        }
     }
 
-    public void setOnTasksDeletedCallback(Runnable callback) {
-        this.onTasksDeletedCallback = callback;
+    private void onDeleted(long[] ids) {
+        logger.info("Auto-deleted {} completed task(s)", ids.length);
+        TaskDependencyGraph graph = TaskDependencyGraph.getInstance();
+        SearchIndexService searchIndex = SearchIndexService.getInstance();
+        for (long id : ids) {
+            graph.removeTask(id);
+            searchIndex.remove(ItemType.TASK, id);
+        }
+        // Notify UI on JavaFX thread
+        if (!deletedListeners.isEmpty()) {
+            Platform.runLater(() -> deletedListeners.forEach(listener -> listener.accept(ids)));
+        }
     }
 
     public void shutdown() {
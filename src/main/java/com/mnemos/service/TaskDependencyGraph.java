@@ -0,0 +1,617 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Task;
+import com.mnemos.util.LongHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory DAG over task_dependencies. Each task keeps a count of its
+ * unfinished predecessors, so a blocked check is a field read and a status
+ * change only touches the task's direct successors.
+ * <p>
+ * A topological order is maintained incrementally (Pearce-Kelly): adding an
+ * edge that already agrees with the order costs nothing, otherwise only the
+ * tasks between the two endpoints are searched and reordered, and a path
+ * back to the predecessor means the edge would close a cycle.
+ * <p>
+ * The same order drives the schedule, in pomodoros: each task keeps its
+ * earliest start and the length of the longest chain from it to the end.
+ * A change re-evaluates only the tasks after it (earliest starts) or
+ * before it (chain lengths), in order, stopping where values settle.
+ */
+public class TaskDependencyGraph {
+    private static final Logger logger = LoggerFactory.getLogger(TaskDependencyGraph.class);
+    private static final TaskDependencyGraph INSTANCE = new TaskDependencyGraph();
+
+    private final LongHashMap<Node> nodes = new LongHashMap<>();
+    private int nextOrder = 0;
+    private int epoch = 0;
+    // Bumped on every change; blocked counts computed before it are stale
+    private int version = 0;
+    private boolean loaded = false;
+    // Earliest finish -> number of dependent tasks finishing then; the last key is the project length
+    private final TreeMap<Integer, Integer> finishes = new TreeMap<>();
+
+    /**
+     * Schedule figures for one dependent task, in pomodoros.
+     *
+     * @param slack        how far the task can slip without delaying the overall finish;
+     *                     zero on the critical path
+     * @param blockedCount unfinished tasks that directly or transitively wait on it
+     */
+    public record Timing(int earliestStart, int earliestFinish, int slack, int blockedCount) {
+    }
+
+    private TaskDependencyGraph() {
+    }
+
+    public static TaskDependencyGraph getInstance() {
+        return INSTANCE;
+    }
+
+    private static class Node {
+        final long id;
+        final List<Node> predecessors = new ArrayList<>(2);
+        final List<Node> successors = new ArrayList<>(2);
+        boolean completed;
+        int pomodoroCount;
+        int unfinishedPredecessors;
+        int order;
+        int visited;
+        int earliestStart;
+        // Longest chain from this task to the end, its own duration included
+        int remaining;
+        // Earliest finish as counted in finishes, or -1 while not counted
+        int countedFinish = -1;
+        int blockedCount;
+        int blockedVersion = -1;
+
+        Node(long id, int order) {
+            this.id = id;
+            this.order = order;
+        }
+
+        /**
+         * At least one pomodoro per unfinished task; completed tasks take no time.
+         */
+        int duration() {
+            return completed ? 0 : Math.max(1, pomodoroCount);
+        }
+
+        boolean scheduled() {
+            return !predecessors.isEmpty() || !successors.isEmpty();
+        }
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Replace the graph with the given tasks and dependency edges. Tasks
+     * without dependencies need not be passed. Stored edges that would close
+     * a cycle are skipped with a warning.
+     *
+     * @param edges predecessor/successor id pairs
+     */
+    public synchronized void load(List<Task> tasks, List<long[]> edges) {
+        nodes.clear();
+        nextOrder = 0;
+        version++;
+        for (Task task : tasks) {
+            track(task);
+        }
+
+        for (long[] edge : edges) {
+            try {
+                link(node(edge[0]), node(edge[1]));
+            } catch (IllegalStateException e) {
+                logger.warn("Ignoring stored dependency {} -> {}: {}", edge[0], edge[1], e.getMessage());
+            }
+        }
+        computeSchedule();
+        loaded = true;
+    }
+
+    public synchronized boolean isBlocked(long taskId) {
+        Node node = nodes.get(taskId);
+        return node != null && node.unfinishedPredecessors > 0;
+    }
+
+    public synchronized int unfinishedPredecessorCount(long taskId) {
+        Node node = nodes.get(taskId);
+        return node == null ? 0 : node.unfinishedPredecessors;
+    }
+
+    public synchronized long[] predecessors(long taskId) {
+        Node node = nodes.get(taskId);
+        return node == null ? new long[0] : ids(node.predecessors);
+    }
+
+    public synchronized long[] successors(long taskId) {
+        Node node = nodes.get(taskId);
+        return node == null ? new long[0] : ids(node.successors);
+    }
+
+    /**
+     * Pomodoros until every dependent task can be done, working the chains in parallel.
+     */
+    public synchronized int projectLength() {
+        return finishes.isEmpty() ? 0 : finishes.lastKey();
+    }
+
+    /**
+     * Task ids on the longest chain of unfinished work, first to last.
+     * Empty when no dependent task has work left.
+     */
+    public synchronized long[] criticalPath() {
+        int length = projectLength();
+        if (length == 0) {
+            return new long[0];
+        }
+        Node last = null;
+        for (Node node : members()) {
+            if (!node.completed && node.earliestStart + node.duration() == length
+                    && (last == null || node.order < last.order)) {
+                last = node;
+            }
+        }
+
+        // Walk back through the predecessor that sets each start. Completed
+        // tasks take no time, so they match trivially; prefer unfinished ones
+        // and pass through completed ones without listing them.
+        List<Long> path = new ArrayList<>();
+        for (Node node = last; node != null; ) {
+            if (!node.completed) {
+                path.add(node.id);
+            }
+            Node driving = null;
+            for (Node predecessor : node.predecessors) {
+                if (predecessor.earliestStart + predecessor.duration() == node.earliestStart) {
+                    driving = predecessor;
+                    if (!predecessor.completed) {
+                        break;
+                    }
+                }
+            }
+            node = driving;
+        }
+        long[] ids = new long[path.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = path.get(ids.length - 1 - i);
+        }
+        return ids;
+    }
+
+    /**
+     * @return the task's schedule, or null if it has no dependencies
+     */
+    public synchronized Timing timing(long taskId) {
+        Node node = nodes.get(taskId);
+        if (node == null || !node.scheduled()) {
+            return null;
+        }
+        int finish = node.earliestStart + node.duration();
+        int slack = projectLength() - node.remaining - node.earliestStart;
+        return new Timing(node.earliestStart, finish, slack, blockedCount(node));
+    }
+
+    /**
+     * Record a saved task's completion state and size, adding it if new.
+     *
+     * @return ids of successors whose blocked state changed as a result
+     */
+    public synchronized long[] updateTask(Task task) {
+        Node node = nodes.get(task.getId());
+        if (node == null) {
+            track(task);
+            return new long[0];
+        }
+        boolean completed = task.getStatus() == Task.Status.COMPLETED;
+        int duration = node.duration();
+        boolean statusChanged = node.completed != completed;
+        node.pomodoroCount = task.getPomodoroCount();
+        node.completed = completed;
+        if (node.duration() != duration) {
+            // Its own start is unchanged; later starts and earlier chains move
+            recount(node);
+            refreshStarts(node.successors);
+            refreshRemaining(List.of(node));
+        }
+        if (!statusChanged) {
+            return new long[0];
+        }
+        version++;
+
+        long[] changed = new long[node.successors.size()];
+        int count = 0;
+        for (Node successor : node.successors) {
+            if (completed) {
+                successor.unfinishedPredecessors--;
+                if (successor.unfinishedPredecessors == 0) {
+                    changed[count++] = successor.id;
+                }
+            } else {
+                successor.unfinishedPredecessors++;
+                if (successor.unfinishedPredecessors == 1) {
+                    changed[count++] = successor.id;
+                }
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Drop a deleted task and its edges.
+     *
+     * @return ids of successors that are no longer blocked
+     */
+    public synchronized long[] removeTask(long taskId) {
+        Node node = nodes.remove(taskId);
+        if (node == null) {
+            return new long[0];
+        }
+        version++;
+        uncount(node);
+
+        long[] unblocked = new long[node.successors.size()];
+        int count = 0;
+        for (Node successor : node.successors) {
+            successor.predecessors.remove(node);
+            if (!node.completed && --successor.unfinishedPredecessors == 0) {
+                unblocked[count++] = successor.id;
+            }
+        }
+        for (Node predecessor : node.predecessors) {
+            predecessor.successors.remove(node);
+        }
+        for (Node successor : node.successors) {
+            recount(successor);
+        }
+        for (Node predecessor : node.predecessors) {
+            recount(predecessor);
+        }
+        refreshStarts(node.successors);
+        refreshRemaining(node.predecessors);
+        return Arrays.copyOf(unblocked, count);
+    }
+
+    /**
+     * Drop every completed task. Completed tasks block nothing, so no
+     * successor changes state.
+     */
+    public synchronized void removeCompletedTasks() {
+        List<Long> completed = new ArrayList<>();
+        nodes.forEach((id, node) -> {
+            if (node.completed) {
+                completed.add(id);
+            }
+        });
+        for (long id : completed) {
+            removeTask(id);
+        }
+    }
+
+    /**
+     * Add the edge predecessor -> successor. Either task may be new to the
+     * graph, so both are passed with their current status and size.
+     *
+     * @return false if the edge already existed
+     * @throws IllegalStateException if the edge would create a cycle
+     */
+    public synchronized boolean addDependency(Task predecessor, Task successor) {
+        Node from = track(predecessor);
+        Node to = track(successor);
+        if (!link(from, to)) {
+            return false;
+        }
+        edgeChanged(from, to);
+        return true;
+    }
+
+    private boolean link(Node from, Node to) {
+        if (from == to) {
+            throw new IllegalStateException("A task cannot depend on itself.");
+        }
+        if (from.successors.contains(to)) {
+            return false;
+        }
+
+        if (from.order > to.order) {
+            reorder(from, to);
+        }
+
+        from.successors.add(to);
+        to.predecessors.add(from);
+        if (!from.completed) {
+            to.unfinishedPredecessors++;
+        }
+        return true;
+    }
+
+    public synchronized void removeDependency(long predecessorId, long successorId) {
+        Node from = nodes.get(predecessorId);
+        Node to = nodes.get(successorId);
+        if (from == null || to == null || !from.successors.remove(to)) {
+            return;
+        }
+        to.predecessors.remove(from);
+        if (!from.completed) {
+            to.unfinishedPredecessors--;
+        }
+        edgeChanged(from, to);
+    }
+
+    /**
+     * Update the schedule after the edge from -> to was added or removed:
+     * starts from 'to' onwards and chain lengths from 'from' backwards.
+     */
+    private void edgeChanged(Node from, Node to) {
+        version++;
+        recount(from);
+        recount(to);
+        refreshStarts(List.of(to));
+        refreshRemaining(List.of(from));
+    }
+
+    /**
+     * Restore a valid order for the new edge from -> to, where from currently
+     * sorts after to. Only tasks ordered between the two are visited.
+     */
+    private void reorder(Node from, Node to) {
+        int lower = to.order;
+        int upper = from.order;
+        epoch++;
+
+        // Tasks reachable from 'to' that sort before 'from'
+        List<Node> forward = new ArrayList<>();
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        to.visited = epoch;
+        stack.push(to);
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            forward.add(current);
+            for (Node next : current.successors) {
+                if (next == from) {
+                    throw new IllegalStateException("Dependency would create a cycle.");
+                }
+                if (next.visited != epoch && next.order < upper) {
+                    next.visited = epoch;
+                    stack.push(next);
+                }
+            }
+        }
+
+        // Tasks that reach 'from' and sort after 'to'
+        List<Node> backward = new ArrayList<>();
+        from.visited = epoch;
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            backward.add(current);
+            for (Node previous : current.predecessors) {
+                if (previous.visited != epoch && previous.order > lower) {
+                    previous.visited = epoch;
+                    stack.push(previous);
+                }
+            }
+        }
+
+        // Reuse the freed order slots: everything that reaches 'from' goes
+        // first, then everything reachable from 'to', each keeping its
+        // relative order
+        Comparator<Node> byOrder = Comparator.comparingInt(node -> node.order);
+        backward.sort(byOrder);
+        forward.sort(byOrder);
+
+        int[] slots = new int[backward.size() + forward.size()];
+        int i = 0;
+        for (Node node : backward) {
+            slots[i++] = node.order;
+        }
+        for (Node node : forward) {
+            slots[i++] = node.order;
+        }
+        Arrays.sort(slots);
+
+        i = 0;
+        for (Node node : backward) {
+            node.order = slots[i++];
+        }
+        for (Node node : forward) {
+            node.order = slots[i++];
+        }
+    }
+
+    /**
+     * Schedule every task from scratch, after a bulk load: one pass in
+     * topological order for starts and one in reverse for chain lengths.
+     */
+    private void computeSchedule() {
+        List<Node> ordered = new ArrayList<>(nodes.size());
+        nodes.forEach((id, node) -> ordered.add(node));
+        ordered.sort(Comparator.comparingInt(node -> node.order));
+
+        for (Node node : ordered) {
+            node.earliestStart = latestPredecessorFinish(node);
+        }
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            Node node = ordered.get(i);
+            node.remaining = longestRemaining(node);
+        }
+        finishes.clear();
+        for (Node node : ordered) {
+            node.countedFinish = -1;
+            recount(node);
+        }
+    }
+
+    /**
+     * Recompute earliest starts from the given tasks onwards. Tasks are taken
+     * in topological order, so each is settled once after all of its changed
+     * predecessors; successors are only queued when a start actually moved.
+     */
+    private void refreshStarts(List<Node> changed) {
+        int mark = ++epoch;
+        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(node -> node.order));
+        for (Node node : changed) {
+            node.visited = mark;
+            queue.add(node);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            int start = latestPredecessorFinish(node);
+            if (start == node.earliestStart) {
+                continue;
+            }
+            node.earliestStart = start;
+            recount(node);
+            for (Node successor : node.successors) {
+                if (successor.visited != mark) {
+                    successor.visited = mark;
+                    queue.add(successor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute chain lengths from the given tasks backwards, in reverse
+     * topological order.
+     */
+    private void refreshRemaining(List<Node> changed) {
+        int mark = ++epoch;
+        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt((Node node) -> node.order).reversed());
+        for (Node node : changed) {
+            node.visited = mark;
+            queue.add(node);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            int remaining = longestRemaining(node);
+            if (remaining == node.remaining) {
+                continue;
+            }
+            node.remaining = remaining;
+            for (Node predecessor : node.predecessors) {
+                if (predecessor.visited != mark) {
+                    predecessor.visited = mark;
+                    queue.add(predecessor);
+                }
+            }
+        }
+    }
+
+    private static int latestPredecessorFinish(Node node) {
+        int start = 0;
+        for (Node predecessor : node.predecessors) {
+            start = Math.max(start, predecessor.earliestStart + predecessor.duration());
+        }
+        return start;
+    }
+
+    private static int longestRemaining(Node node) {
+        int after = 0;
+        for (Node successor : node.successors) {
+            after = Math.max(after, successor.remaining);
+        }
+        return node.duration() + after;
+    }
+
+    /**
+     * Bring the task's earliest finish in {@link #finishes} up to date, or
+     * drop it once the task has no dependencies left.
+     */
+    private void recount(Node node) {
+        uncount(node);
+        if (node.scheduled()) {
+            node.countedFinish = node.earliestStart + node.duration();
+            finishes.merge(node.countedFinish, 1, Integer::sum);
+        }
+    }
+
+    private void uncount(Node node) {
+        if (node.countedFinish >= 0) {
+            finishes.computeIfPresent(node.countedFinish, (finish, count) -> count == 1 ? null : count - 1);
+            node.countedFinish = -1;
+        }
+    }
+
+    /**
+     * Unfinished tasks reachable from the node, by a search over its
+     * descendants only. Remembered until the graph next changes.
+     */
+    private int blockedCount(Node node) {
+        if (node.blockedVersion == version) {
+            return node.blockedCount;
+        }
+        int mark = ++epoch;
+        int count = 0;
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            for (Node successor : stack.pop().successors) {
+                if (successor.visited != mark) {
+                    successor.visited = mark;
+                    if (!successor.completed) {
+                        count++;
+                    }
+                    stack.push(successor);
+                }
+            }
+        }
+        node.blockedCount = count;
+        node.blockedVersion = version;
+        return count;
+    }
+
+    private List<Node> members() {
+        List<Node> members = new ArrayList<>();
+        nodes.forEach((id, node) -> {
+            if (node.scheduled()) {
+                members.add(node);
+            }
+        });
+        return members;
+    }
+
+    /**
+     * The task's node, created from the task's state if it is not in the
+     * graph yet. Existing nodes are kept current by {@link #updateTask(Task)}.
+     */
+    private Node track(Task task) {
+        Node node = nodes.get(task.getId());
+        if (node == null) {
+            node = node(task.getId());
+            node.completed = task.getStatus() == Task.Status.COMPLETED;
+            node.pomodoroCount = task.getPomodoroCount();
+            node.remaining = node.duration();
+        }
+        return node;
+    }
+
+    private Node node(long id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = new Node(id, nextOrder++);
+            nodes.put(id, node);
+        }
+        return node;
+    }
+
+    private static long[] ids(List<Node> list) {
+        long[] ids = new long[list.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = list.get(i).id;
+        }
+        return ids;
+    }
+}
@@ -1,8 +1,6 @@
 package com.mnemos.service;
 
 import com.mnemos.model.Task;
-import com.mnemos.model.Task.RecurrenceType;
-import com.mnemos.model.Task.RecurrenceUnit;
 import com.mnemos.repository.TaskRepository;
 import java.time.LocalDate;
 import java.util.logging.Logger;
@@ -15,30 +13,41 @@ public class TaskSchedulerService {
         this.taskRepository = new TaskRepository();
     }
 
-    public void onTaskCompleted(Task completedTask) {
-        if (completedTask.getRecurrenceType() == RecurrenceType.NONE) {
-            return;
+    /**
+     * Save the next instance of a completed recurring task.
+     *
+     * @return the saved instance, or null when the task does not recur again
+     */
+    public Task onTaskCompleted(Task completedTask) {
+        Task nextTask = nextOccurrence(completedTask);
+        if (nextTask == null) {
+            return null;
         }
 
-        if (completedTask.getRecurrenceEndDate() != null &&
-                completedTask.getRecurrenceEndDate().isBefore(LocalDate.now())) {
-            return;
-        }
-
-        if (completedTask.getRecurrenceMaxOccurrences() > 0) {
-            // Max occurrences reached — don't create a new one
-            // (caller is expected to decrement before calling)
-            return;
-        }
-
-        Task nextTask = createNextRecurrence(completedTask);
         taskRepository.save(nextTask);
         logger.info("Created next recurring task instance: " + nextTask.getTitle());
+        return nextTask;
     }
 
-    private Task createNextRecurrence(Task originalTask) {
-        LocalDate nextDueDate = calculateNextDueDate(originalTask);
+    /**
+     * The unsaved next instance of a completed recurring task, or null when
+     * the task does not recur again. The end date and remaining occurrence
+     * count are checked against the next date itself.
+     */
+    public Task nextOccurrence(Task completedTask) {
+        RecurrenceRule rule = RecurrenceRule.of(completedTask);
+        if (rule == null) {
+            return null;
+        }
+
+        LocalDate nextDueDate = rule.nextAfter(rule.start());
+        if (nextDueDate == null) {
+            return null;
+        }
+        return createNextRecurrence(completedTask, nextDueDate);
+    }
 
+    private Task createNextRecurrence(Task originalTask, LocalDate nextDueDate) {
         Task nextTask = new Task(
                 originalTask.getTitle(),
                 originalTask.getPriority(),
@@ -49,6 +58,7 @@ public class TaskSchedulerService {
         nextTask.setRecurrenceEndDate(originalTask.getRecurrenceEndDate());
         nextTask.setRecurrenceUnit(originalTask.getRecurrenceUnit());
         nextTask.setRecurrenceDays(originalTask.getRecurrenceDays());
+        // Occurrences left including this one; 0 means unlimited
         nextTask.setRecurrenceMaxOccurrences(
                 originalTask.getRecurrenceMaxOccurrences() > 0
                         ? originalTask.getRecurrenceMaxOccurrences() - 1
@@ -56,24 +66,4 @@ public class TaskSchedulerService {
 
         return nextTask;
     }
-
-    private LocalDate calculateNextDueDate(Task task) {
-        LocalDate baseDate = task.getDueDate() != null ? task.getDueDate() : LocalDate.now();
-        int interval = task.getRecurrenceInterval() > 0 ? task.getRecurrenceInterval() : 1;
-
-        if (task.getRecurrenceType() == RecurrenceType.DAILY) {
-            return baseDate.plusDays(interval);
-        } else if (task.getRecurrenceType() == RecurrenceType.WEEKLY) {
-            return baseDate.plusWeeks(interval);
-        } else if (task.getRecurrenceType() == RecurrenceType.CUSTOM) {
-            RecurrenceUnit unit = task.getRecurrenceUnit() != null ? task.getRecurrenceUnit() : RecurrenceUnit.DAYS;
-            return switch (unit) {
-                case WEEKS -> baseDate.plusWeeks(interval);
-                case MONTHS -> baseDate.plusMonths(interval);
-                default -> baseDate.plusDays(interval);
-            };
-        }
-
-        return baseDate.plusDays(1);
-    }
 }
@@ -1,68 +1,231 @@
 package com.mnemos.service;
 
+import com.mnemos.model.Link.ItemType;
 import com.mnemos.model.Task;
+import com.mnemos.repository.TaskOccurrenceRepository;
 import com.mnemos.repository.TaskRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 public class TaskService {
     private final TaskRepository repository;
     private final TaskSchedulerService scheduler;
+    private final RecurrenceService recurrence;
 
     public TaskService() {
         this.repository = new TaskRepository();
         this.scheduler = new TaskSchedulerService();
+        this.recurrence = RecurrenceService.getInstance();
+    }
+
+    /**
+     * Load the in-memory dependency graph. Called once at startup; later
+     * changes go through this service and keep it in sync.
+     */
+    public void loadDependencyGraph() {
+        TaskDependencyGraph.getInstance().load(repository.findWithDependencies(), repository.findAllDependencies());
+    }
+
+    private TaskDependencyGraph graph() {
+        TaskDependencyGraph graph = TaskDependencyGraph.getInstance();
+        if (!graph.isLoaded()) {
+            loadDependencyGraph();
+        }
+        return graph;
     }
 
     public Task saveTask(Task task) {
         // Business Logic: Check dependencies before completion
         if (task.getStatus() == Task.Status.COMPLETED) {
-            if (!repository.canStart(task.getId())) {
-                // Task is blocked.
-                // For now, we revert status or throw exception?
-                // Ideally UI should prevent this.
-                // But backend should enforce.
-                // We'll throw an IllegalStateException for the controller to handle.
+            if (task.getId() != null && graph().isBlocked(task.getId())) {
+                // Backend enforces this even though the UI should prevent it;
+                // the controller handles the exception.
                 throw new IllegalStateException("Task is blocked by incomplete dependencies.");
             }
 
             // Handle recurrence
-            scheduler.onTaskCompleted(task);
+            Task next = scheduler.onTaskCompleted(task);
+            if (next != null) {
+                recurrence.refresh(next);
+                SearchIndexService.getInstance().indexTask(next);
+            }
+        }
+
+        Task saved = repository.save(task);
+        syncCompletion(saved);
+        recurrence.refresh(saved);
+        SearchIndexService.getInstance().indexTask(saved);
+        return saved;
+    }
+
+    /**
+     * Save many tasks in one transaction, with the same completion rules as
+     * {@link #saveTask(Task)}. Next instances of completed recurring tasks
+     * are written in the same transaction and included in the result.
+     */
+    public List<Task> saveTasks(Collection<Task> tasks) {
+        List<Task> toSave = new ArrayList<>(tasks);
+        for (Task task : tasks) {
+            if (task.getStatus() != Task.Status.COMPLETED) {
+                continue;
+            }
+            if (task.getId() != null && graph().isBlocked(task.getId())) {
+                throw new IllegalStateException("Task is blocked by incomplete dependencies.");
+            }
+            Task next = scheduler.nextOccurrence(task);
+            if (next != null) {
+                toSave.add(next);
+            }
+        }
+        List<Task> saved = repository.saveAll(toSave);
+        for (Task task : saved) {
+            syncCompletion(task);
+            recurrence.refresh(task);
+            SearchIndexService.getInstance().indexTask(task);
+        }
+        return saved;
+    }
+
+    /**
+     * Start, slack and blocked count of a task, or null if it has no dependencies.
+     */
+    public TaskDependencyGraph.Timing getTiming(long taskId) {
+        return graph().timing(taskId);
+    }
+
+    /**
+     * Ids of the longest chain of unfinished dependent tasks, first to last.
+     */
+    public long[] getCriticalPath() {
+        return graph().criticalPath();
+    }
+
+    /**
+     * Pomodoros until all dependent tasks can be done.
+     */
+    public int getCriticalPathLength() {
+        return graph().projectLength();
+    }
+
+    private void syncCompletion(Task task) {
+        if (task.getId() != null) {
+            graph().updateTask(task);
+            if (task.getStatus() == Task.Status.COMPLETED) {
+                TaskCleanupService.getInstance().onTaskCompleted();
+            }
         }
+    }
+
+    /**
+     * Agenda for [from, to]: pending one-off tasks and every date of each
+     * recurring series in the range, without creating task rows.
+     */
+    public List<TaskOccurrenceRepository.Occurrence> getAgenda(LocalDate from, LocalDate to) {
+        return recurrence.getOccurrences(from, to);
+    }
+
+    public List<Task> getTasksById(long[] ids) {
+        return repository.findAllById(ids);
+    }
+
+    /**
+     * Reminders due in [from, to), as {task_id, reminder_at} pairs.
+     */
+    public List<long[]> getRemindersBetween(long from, long to) {
+        return repository.findRemindersBetween(from, to);
+    }
 
-        return repository.save(task);
+    public Optional<Task> getTaskById(Long id) {
+        return repository.findById(id);
     }
 
     public List<Task> getAllTasks() {
         return repository.findAll();
     }
 
+    /**
+     * Tasks in the given status ordered by priority and due date, or every
+     * task in that order when status is null.
+     */
     public List<Task> getTasksByStatus(Task.Status status) {
-        return repository.findAll().stream()
-                .filter(t -> t.getStatus() == status)
-                .collect(Collectors.toList());
+        return repository.findByFilter(status, null, null, null);
+    }
+
+    public List<Task> findTasks(Task.Status status, Task.Priority priority, LocalDate dueFrom, LocalDate dueTo) {
+        return repository.findByFilter(status, priority, dueFrom, dueTo);
     }
 
     public void deleteTask(Long id) {
         repository.deleteById(id);
+        recurrence.forget(List.of(id));
+        graph().removeTask(id);
+        SearchIndexService.getInstance().remove(ItemType.TASK, id);
+    }
+
+    public void deleteTasks(Collection<Long> ids) {
+        repository.deleteAllById(ids);
+        recurrence.forget(ids);
+        for (Long id : ids) {
+            graph().removeTask(id);
+            SearchIndexService.getInstance().remove(ItemType.TASK, id);
+        }
     }
 
     public int deleteAllCompletedTasks() {
-        return repository.deleteAllCompletedTasks();
+        long[] deleted = repository.deleteAllCompletedTasks();
+        graph().removeCompletedTasks();
+        for (long id : deleted) {
+            SearchIndexService.getInstance().remove(ItemType.TASK, id);
+        }
+        return deleted.length;
     }
 
     // Dependency Management
+
+    /**
+     * @throws IllegalStateException if the dependency would create a cycle
+     */
     public void addDependency(long predecessorId, long successorId) {
         if (predecessorId == successorId)
             return; // Prevent self-dependency
-        repository.addDependency(predecessorId, successorId);
+        // The graph only holds tasks that had dependencies at load or were
+        // saved since, so pass both endpoints' current state along
+        Task predecessor = null;
+        Task successor = null;
+        for (Task task : repository.findAllById(new long[] { predecessorId, successorId })) {
+            if (task.getId() == predecessorId) {
+                predecessor = task;
+            } else {
+                successor = task;
+            }
+        }
+        if (predecessor == null || successor == null) {
+            return; // One of them was deleted
+        }
+        boolean added = graph().addDependency(predecessor, successor);
+        if (!repository.addDependency(predecessorId, successorId) && added) {
+            graph().removeDependency(predecessorId, successorId);
+        }
     }
 
     public void removeDependency(long predecessorId, long successorId) {
-        repository.removeDependency(predecessorId, successorId);
+        if (repository.removeDependency(predecessorId, successorId)) {
+            graph().removeDependency(predecessorId, successorId);
+        }
     }
 
     public boolean isBlocked(long taskId) {
-        return !repository.canStart(taskId);
+        return graph().isBlocked(taskId);
+    }
+
+    /**
+     * Tasks that directly or transitively depend on the given task, with
+     * their current blocked state.
+     */
+    public List<TaskRepository.DownstreamTask> getDownstreamTasks(long taskId) {
+        return repository.findDownstream(taskId);
     }
 }
@@ -1,6 +1,13 @@
 package com.mnemos.ui;
 
 import com.mnemos.command.CommandItem;
+import com.mnemos.command.CommandMatcher;
+import com.mnemos.model.Link.ItemType;
+import com.mnemos.repository.SearchRepository.SearchResult;
+import com.mnemos.service.SearchIndexService;
+import com.mnemos.service.SearchService;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -11,19 +18,54 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
+/**
+ * Jump-to launcher over commands and stored tasks, notes and files.
+ * Commands are matched on the FX thread as the user types; stored items
+ * are searched in the background and merged into the same ranked list.
+ * If they are not back within a frame, the command matches are shown
+ * first and the list is updated when they arrive. A newer query makes
+ * older ones obsolete, whether waiting or running, so a stale result
+ * never replaces a fresh one.
+ */
 public class CommandPaletteController {
+    private static final int MAX_RESULTS = 50;
+    private static final int MAX_ITEM_RESULTS = 30;
+    // How long the list waits for stored items before showing command matches alone
+    private static final Duration FIRST_RESULTS_BUDGET = Duration.millis(16);
+
+    // One search at a time and at most one waiting; a newer query replaces the waiting one
+    private static final ExecutorService searchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), r -> {
+                Thread thread = new Thread(r, "CommandPaletteSearch");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardOldestPolicy());
 
     @FXML
     private TextField searchField;
     @FXML
     private ListView<CommandItem> commandListView;
 
-    private final ObservableList<CommandItem> allCommands = FXCollections.observableArrayList();
+    private List<CommandItem> commands = List.of();
+    private CommandMatcher matcher = new CommandMatcher(commands);
     private final ObservableList<CommandItem> filteredCommands = FXCollections.observableArrayList();
+    private final SearchService searchService = new SearchService();
+    private final PauseTransition firstResults = new PauseTransition(FIRST_RESULTS_BUDGET);
+    private BiConsumer<ItemType, Long> itemOpener;
+    // Bumped on every query; background work for an older one is dropped
+    private volatile long generation = 0;
     private Stage stage;
     private Runnable onCloseCallback;
 
@@ -55,8 +97,17 @@ public class CommandPaletteController {
         this.onCloseCallback = callback;
     }
 
+    /**
+     * Called with the type and id of a stored item the user picks. Without
+     * one, only commands are listed.
+     */
+    public void setItemOpener(BiConsumer<ItemType, Long> opener) {
+        this.itemOpener = opener;
+    }
+
     public void setCommands(List<CommandItem> commands) {
-        allCommands.setAll(commands);
+        this.commands = List.copyOf(commands);
+        matcher = new CommandMatcher(this.commands);
         filterCommands("");
 
         // Auto-select first item
@@ -70,17 +121,88 @@ public class CommandPaletteController {
     }
 
     private void filterCommands(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            filteredCommands.setAll(allCommands);
-        } else {
-            List<CommandItem> matches = new ArrayList<>();
-            for (CommandItem cmd : allCommands) {
-                if (cmd.matches(query)) {
-                    matches.add(cmd);
+        long current = ++generation;
+        List<CommandItem> commandMatches = matcher.top(query, MAX_RESULTS);
+        String text = query == null ? "" : query.strip();
+        firstResults.stop();
+        if (text.isEmpty() || itemOpener == null) {
+            showResults(commandMatches);
+            return;
+        }
+
+        firstResults.setOnFinished(e -> {
+            if (current == generation) {
+                showResults(commandMatches);
+            }
+        });
+        firstResults.playFromStart();
+        searchExecutor.execute(() -> {
+            if (current != generation) {
+                return;
+            }
+            List<CommandItem> items = findItems(text);
+            if (current != generation) {
+                return;
+            }
+            List<CommandItem> merged = merge(text, items);
+            Platform.runLater(() -> {
+                if (current == generation) {
+                    firstResults.stop();
+                    showResults(merged);
                 }
+            });
+        });
+    }
+
+    /**
+     * Stored items matching the query, from the in-memory index or, while
+     * that is still loading, from the full-text index.
+     */
+    private List<CommandItem> findItems(String text) {
+        List<CommandItem> items = new ArrayList<>();
+        SearchIndexService index = SearchIndexService.getInstance();
+        if (index.isReady()) {
+            for (SearchIndexService.Match match : index.search(text, MAX_ITEM_RESULTS)) {
+                items.add(toCommandItem(match.type(), match.id(), match.title()));
+            }
+        } else {
+            for (SearchResult result : searchService.search(text, null, MAX_ITEM_RESULTS)) {
+                items.add(toCommandItem(result.type(), result.id(), SearchService.stripMarkers(result.title())));
             }
-            filteredCommands.setAll(matches);
         }
+        return items;
+    }
+
+    /**
+     * Commands and items ranked together by how well their names match, then
+     * items that only matched in their content, in search order.
+     */
+    private List<CommandItem> merge(String text, List<CommandItem> items) {
+        List<CommandItem> candidates = new ArrayList<>(commands.size() + items.size());
+        candidates.addAll(commands);
+        candidates.addAll(items);
+        Set<CommandItem> merged = new LinkedHashSet<>(new CommandMatcher(candidates).top(text, MAX_RESULTS));
+        for (CommandItem item : items) {
+            if (merged.size() >= MAX_RESULTS) {
+                break;
+            }
+            merged.add(item);
+        }
+        return new ArrayList<>(merged);
+    }
+
+    private CommandItem toCommandItem(ItemType type, long id, String title) {
+        String name = title != null ? title : "";
+        BiConsumer<ItemType, Long> opener = itemOpener;
+        return switch (type) {
+            case TASK -> new CommandItem(name, "Open task", "Tasks", "✓", () -> opener.accept(type, id));
+            case NOTE -> new CommandItem(name, "Open note", "Notes", "📄", () -> opener.accept(type, id));
+            case FILE -> new CommandItem(name, "Open file", "Files", "📁", () -> opener.accept(type, id));
+        };
+    }
+
+    private void showResults(List<CommandItem> results) {
+        filteredCommands.setAll(results);
 
         // Auto-select first item
         if (!filteredCommands.isEmpty()) {
@@ -134,6 +256,9 @@ public class CommandPaletteController {
     }
 
     private void close() {
+        // Drop any search still in flight
+        generation++;
+        firstResults.stop();
         if (stage != null) {
             stage.close();
         }
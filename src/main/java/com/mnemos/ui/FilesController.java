@@ -23,6 +23,8 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class FilesController {
@@ -40,6 +42,8 @@ public class FilesController {
     private final LinkService linkService = new LinkService();
     private final ObservableList<FileReference> files = FXCollections.observableArrayList();
     private final ObservableList<LinkedItem> linkedItems = FXCollections.observableArrayList();
+    private final PagedListLoader<FileReference> filesLoader = new PagedListLoader<>(files,
+            fileService::getFilesPage);
     private FileReference selectedFile = null;
 
     @FXML
@@ -170,6 +174,7 @@ public class FilesController {
                 nameLabel.setText(item.getName());
                 setGraphic(content);
                 setText(null);
+                filesLoader.onCellShown(getIndex());
             }
         }
     }
@@ -213,8 +218,29 @@ public class FilesController {
         }
     }
 
+    /**
+     * Let the user pick a file to add.
+     */
+    public void chooseFile() {
+        handleChooseFile();
+    }
+
+    /**
+     * Select the file with the given id if it is loaded, and open it.
+     */
+    public void showFile(long id) {
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).getId() != null && files.get(i).getId() == id) {
+                filesListView.getSelectionModel().select(i);
+                filesListView.scrollTo(i);
+                break;
+            }
+        }
+        fileService.getFileById(id).ifPresent(fileService::openFile);
+    }
+
     private void loadFiles() {
-        files.setAll(fileService.getAllFiles());
+        filesLoader.reload();
     }
 
     @FXML
@@ -231,10 +257,11 @@ public class FilesController {
         boolean success = false;
         if (db.hasFiles()) {
             List<File> droppedFiles = db.getFiles();
-            for (File file : droppedFiles) {
-                fileService.addFile(file);
-            }
-            loadFiles();
+            List<FileReference> added = new ArrayList<>(fileService.addFiles(droppedFiles));
+            added.removeIf(ref -> ref.getId() == null);
+            // The list is newest first
+            Collections.reverse(added);
+            files.addAll(0, added);
             success = true;
         }
         event.setDropCompleted(success);
@@ -253,8 +280,10 @@ public class FilesController {
 
         File selectedFileChooser = fileChooser.showOpenDialog(filesListView.getScene().getWindow());
         if (selectedFileChooser != null) {
-            fileService.addFile(selectedFileChooser);
-            loadFiles();
+            FileReference added = fileService.addFile(selectedFileChooser);
+            if (added.getId() != null) {
+                files.add(0, added);
+            }
         }
     }
 }
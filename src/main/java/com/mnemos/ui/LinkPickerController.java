@@ -3,12 +3,26 @@ package com.mnemos.ui;
 import com.mnemos.model.*;
 import com.mnemos.model.Link.ItemType;
 import com.mnemos.service.LinkService;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
-
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks a task, note or file to link to. Searching runs in the background
+ * once typing pauses, with the filtering and limit done in SQL, and only
+ * the results of the latest query reach the lists.
+ */
 public class LinkPickerController {
     @FXML
     private TextField searchField;
@@ -17,11 +31,32 @@ public class LinkPickerController {
     @FXML
     private ListView<Task> tasksListView;
     @FXML
-    private ListView<Note> notesListView;
+    private ListView<NoteSummary> notesListView;
     @FXML
     private ListView<FileReference> filesListView;
 
+    // Per tab; the picker is for finding one item, not browsing everything
+    private static final int MAX_RESULTS = 200;
+    private static final Duration SEARCH_DELAY = Duration.millis(150);
+
+    // One search at a time and at most one waiting; a newer query replaces the waiting one
+    private static final ExecutorService searchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), r -> {
+                Thread thread = new Thread(r, "LinkPickerSearch");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    private record Results(List<Task> tasks, List<NoteSummary> notes, List<FileReference> files) {
+    }
+
     private final LinkService linkService = new LinkService();
+    private final ObservableList<Task> tasks = FXCollections.observableArrayList();
+    private final ObservableList<NoteSummary> notes = FXCollections.observableArrayList();
+    private final ObservableList<FileReference> files = FXCollections.observableArrayList();
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+    // Bumped on every query; background work for an older one is dropped
+    private volatile long generation = 0;
     private Stage stage;
     private ItemType selectedType;
     private Long selectedId;
@@ -38,6 +73,8 @@ public class LinkPickerController {
     public void setExclude(ItemType type, Long id) {
         this.excludeType = type;
         this.excludeId = id;
+        // The first load may have run before the exclusion was known
+        search(searchField.getText());
     }
 
     public boolean isLinkCreated() {
@@ -54,32 +91,12 @@ public class LinkPickerController {
 
     @FXML
     public void initialize() {
-        loadItems();
-        setupCellFactories();
-        setupSearch();
-    }
-
-    private void loadItems() {
-        // Load tasks
-        ObservableList<Task> tasks = FXCollections.observableArrayList(linkService.getAllTasks());
-        if (excludeType == ItemType.TASK && excludeId != null) {
-            tasks.removeIf(t -> t.getId().equals(excludeId));
-        }
         tasksListView.setItems(tasks);
-
-        // Load notes
-        ObservableList<Note> notes = FXCollections.observableArrayList(linkService.getAllNotes());
-        if (excludeType == ItemType.NOTE && excludeId != null) {
-            notes.removeIf(n -> n.getId().equals(excludeId));
-        }
         notesListView.setItems(notes);
-
-        // Load files
-        ObservableList<FileReference> files = FXCollections.observableArrayList(linkService.getAllFiles());
-        if (excludeType == ItemType.FILE && excludeId != null) {
-            files.removeIf(f -> f.getId().equals(excludeId));
-        }
         filesListView.setItems(files);
+        setupCellFactories();
+        setupSearch();
+        search("");
     }
 
     private void setupCellFactories() {
@@ -99,7 +116,7 @@ public class LinkPickerController {
 
         notesListView.setCellFactory(lv -> new ListCell<>() {
             @Override
-            protected void updateItem(Note item, boolean empty) {
+            protected void updateItem(NoteSummary item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
@@ -127,41 +144,58 @@ public class LinkPickerController {
     }
 
     private void setupSearch() {
+        searchDelay.setOnFinished(e -> search(searchField.getText()));
         searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            String filter = newVal.toLowerCase();
-
-            // Filter tasks
-            ObservableList<Task> allTasks = FXCollections.observableArrayList(linkService.getAllTasks());
-            if (excludeType == ItemType.TASK && excludeId != null) {
-                allTasks.removeIf(t -> t.getId().equals(excludeId));
-            }
-            if (!filter.isEmpty()) {
-                allTasks.removeIf(t -> !t.getTitle().toLowerCase().contains(filter));
-            }
-            tasksListView.setItems(allTasks);
+            // Outdate the running search now, not only once the delay is over
+            generation++;
+            searchDelay.playFromStart();
+        });
+    }
 
-            // Filter notes
-            ObservableList<Note> allNotes = FXCollections.observableArrayList(linkService.getAllNotes());
-            if (excludeType == ItemType.NOTE && excludeId != null) {
-                allNotes.removeIf(n -> n.getId().equals(excludeId));
-            }
-            if (!filter.isEmpty()) {
-                allNotes.removeIf(n -> !n.getTitle().toLowerCase().contains(filter));
+    /**
+     * Query all three lists in the background and show the results if no
+     * newer query has started meanwhile.
+     */
+    private void search(String text) {
+        searchDelay.stop();
+        long current = ++generation;
+        String filter = text == null ? "" : text.strip();
+        Long excludeTask = excludedId(ItemType.TASK);
+        Long excludeNote = excludedId(ItemType.NOTE);
+        Long excludeFile = excludedId(ItemType.FILE);
+
+        searchExecutor.execute(() -> {
+            if (current != generation) {
+                return;
             }
-            notesListView.setItems(allNotes);
-
-            // Filter files
-            ObservableList<FileReference> allFiles = FXCollections.observableArrayList(linkService.getAllFiles());
-            if (excludeType == ItemType.FILE && excludeId != null) {
-                allFiles.removeIf(f -> f.getId().equals(excludeId));
+            List<Task> foundTasks = linkService.findTasks(filter, excludeTask, MAX_RESULTS);
+            if (current != generation) {
+                return;
             }
-            if (!filter.isEmpty()) {
-                allFiles.removeIf(f -> !f.getName().toLowerCase().contains(filter));
+            List<NoteSummary> foundNotes = linkService.findNotes(filter, excludeNote, MAX_RESULTS);
+            if (current != generation) {
+                return;
             }
-            filesListView.setItems(allFiles);
+            List<FileReference> foundFiles = linkService.findFiles(filter, excludeFile, MAX_RESULTS);
+            Results results = new Results(foundTasks, foundNotes, foundFiles);
+            Platform.runLater(() -> {
+                if (current == generation) {
+                    showResults(results);
+                }
+            });
         });
     }
 
+    private void showResults(Results results) {
+        tasks.setAll(results.tasks());
+        notes.setAll(results.notes());
+        files.setAll(results.files());
+    }
+
+    private Long excludedId(ItemType type) {
+        return excludeType == type ? excludeId : null;
+    }
+
     @FXML
     private void handleLink() {
         // Get selected item based on current tab
@@ -177,7 +211,7 @@ public class LinkPickerController {
                 }
             }
             case 1 -> { // Notes
-                Note note = notesListView.getSelectionModel().getSelectedItem();
+                NoteSummary note = notesListView.getSelectionModel().getSelectedItem();
                 if (note != null) {
                     selectedType = ItemType.NOTE;
                     selectedId = note.getId();
@@ -195,12 +229,19 @@ public class LinkPickerController {
         }
 
         if (linkCreated && stage != null) {
-            stage.close();
+            close();
         }
     }
 
     @FXML
     private void handleCancel() {
+        close();
+    }
+
+    private void close() {
+        // Drop any search still in flight
+        generation++;
+        searchDelay.stop();
         if (stage != null) {
             stage.close();
         }
@@ -1,5 +1,7 @@
 package com.mnemos.ui;
 
+import com.mnemos.model.Link.ItemType;
+import com.mnemos.service.NoteAutoSaveService;
 import javafx.fxml.FXML;
 import javafx.scene.control.TabPane;
 import javafx.scene.layout.AnchorPane;
@@ -25,6 +27,10 @@ public class MainController {
     @FXML
     private javafx.scene.control.ToggleButton filesTabBtn;
 
+    private NotesController notesController;
+    private TasksController tasksController;
+    private FilesController filesController;
+
     @FXML
     public void initialize() {
         try {
@@ -38,6 +44,7 @@ public class MainController {
             javafx.fxml.FXMLLoader notesLoader = new javafx.fxml.FXMLLoader(
                     getClass().getResource("/com/mnemos/ui/NotesView.fxml"));
             javafx.scene.Node notesView = notesLoader.load();
+            notesController = notesLoader.getController();
 
             AnchorPane.setTopAnchor(notesView, 0.0);
             AnchorPane.setBottomAnchor(notesView, 0.0);
@@ -49,6 +56,7 @@ public class MainController {
             javafx.fxml.FXMLLoader tasksLoader = new javafx.fxml.FXMLLoader(
                     getClass().getResource("/com/mnemos/ui/TasksView.fxml"));
             javafx.scene.Node tasksView = tasksLoader.load();
+            tasksController = tasksLoader.getController();
             AnchorPane.setTopAnchor(tasksView, 0.0);
             AnchorPane.setBottomAnchor(tasksView, 0.0);
             AnchorPane.setLeftAnchor(tasksView, 0.0);
@@ -58,6 +66,7 @@ public class MainController {
             javafx.fxml.FXMLLoader filesLoader = new javafx.fxml.FXMLLoader(
                     getClass().getResource("/com/mnemos/ui/FilesView.fxml"));
             javafx.scene.Node filesView = filesLoader.load();
+            filesController = filesLoader.getController();
             AnchorPane.setTopAnchor(filesView, 0.0);
             AnchorPane.setBottomAnchor(filesView, 0.0);
             AnchorPane.setLeftAnchor(filesView, 0.0);
@@ -96,6 +105,53 @@ public class MainController {
         }
     }
 
+    public void showNotes() {
+        mainTabPane.getSelectionModel().select(0);
+    }
+
+    public void showTasks() {
+        mainTabPane.getSelectionModel().select(1);
+    }
+
+    public void showFiles() {
+        mainTabPane.getSelectionModel().select(2);
+    }
+
+    public void newNote() {
+        showNotes();
+        notesController.createNote();
+    }
+
+    public void newTask() {
+        showTasks();
+        tasksController.focusNewTask();
+    }
+
+    public void addFile() {
+        showFiles();
+        filesController.chooseFile();
+    }
+
+    /**
+     * Jump to a stored task, note or file.
+     */
+    public void open(ItemType type, long id) {
+        switch (type) {
+            case TASK -> {
+                showTasks();
+                tasksController.showTask(id);
+            }
+            case NOTE -> {
+                showNotes();
+                notesController.openNote(id);
+            }
+            case FILE -> {
+                showFiles();
+                filesController.showFile(id);
+            }
+        }
+    }
+
     @FXML
     private void handleClose() {
         Stage stage = (Stage) rootPane.getScene().getWindow();
@@ -104,6 +160,7 @@ public class MainController {
 
     @FXML
     private void handleMinimize() {
+        NoteAutoSaveService.getInstance().flushAll();
         Stage stage = (Stage) rootPane.getScene().getWindow();
         stage.setIconified(true);
     }
@@ -1,39 +1,49 @@
 package com.mnemos.ui;
 
 import com.mnemos.model.Note;
+import com.mnemos.model.NoteSummary;
 import com.mnemos.model.LinkedItem;
 import com.mnemos.model.Link.ItemType;
+import com.mnemos.repository.NoteRepository;
+import com.mnemos.service.NoteAutoSaveService;
 import com.mnemos.service.NoteService;
 import com.mnemos.service.LinkService;
 import com.mnemos.App;
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 public class NotesController {
+    private static final DateTimeFormatter REVISION_TIME = DateTimeFormatter.ofPattern("MMM d, HH:mm");
 
     @FXML
     private VBox listViewbox;
     @FXML
     private VBox editorViewbox;
     @FXML
-    private ListView<Note> notesListView;
+    private ListView<NoteSummary> notesListView;
     @FXML
     private TextField titleField;
     @FXML
@@ -47,26 +57,19 @@ public class NotesController {
 
     private final NoteService noteService = new NoteService();
     private final LinkService linkService = new LinkService();
-    private final ObservableList<Note> notes = FXCollections.observableArrayList();
+    private final ObservableList<NoteSummary> notes = FXCollections.observableArrayList();
     private final ObservableList<LinkedItem> linkedItems = FXCollections.observableArrayList();
+    private final PagedListLoader<NoteSummary> notesLoader = new PagedListLoader<>(notes,
+            noteService::getNoteSummaryPage);
+    private final NoteAutoSaveService autoSave = NoteAutoSaveService.getInstance();
     private Note currentNote;
-    private Timer autoSaveTimer;
+    // Set while the editor is filled from a note, so that is not taken as an edit
+    private boolean loadingEditor = false;
 
     @FXML
     public void initialize() {
         notesListView.setItems(notes);
-        notesListView.setCellFactory(param -> new ListCell<>() {
-            @Override
-            protected void updateItem(Note item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                    setGraphic(null);
-                } else {
-                    setText(item.getTitle());
-                }
-            }
-        });
+        notesListView.setCellFactory(param -> new NoteSummaryCell());
 
         notesListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
@@ -82,21 +85,55 @@ public class NotesController {
     }
 
     private void loadNotes() {
-        notes.setAll(noteService.getAllNotes());
+        notesLoader.reload();
     }
 
     @FXML
     private void handleNewNote() {
         currentNote = new Note("New Note", "");
         currentNote = noteService.saveNote(currentNote);
-        notes.add(0, currentNote);
-        editNote(currentNote);
+        notes.add(0, NoteSummary.of(currentNote));
+        showEditor(currentNote);
+    }
+
+    /**
+     * Start a new note in the editor.
+     */
+    public void createNote() {
+        handleNewNote();
+    }
+
+    /**
+     * Open the note with the given id in the editor, if it still exists.
+     */
+    public void openNote(long id) {
+        if (currentNote != null && currentNote.getId() != null) {
+            autoSave.flush(currentNote.getId());
+        }
+        // Edits still waiting to be saved would be missing from the read below
+        autoSave.flush(id);
+        noteService.getNoteById(id).ifPresent(this::showEditor);
     }
 
-    private void editNote(Note note) {
+    /**
+     * Open a note from the list. Its body is only read from the database here.
+     */
+    private void editNote(NoteSummary summary) {
+        noteService.getNoteById(summary.getId()).ifPresentOrElse(this::showEditor, () -> {
+            // Deleted since the list was loaded
+            notes.remove(summary);
+        });
+    }
+
+    private void showEditor(Note note) {
         currentNote = note;
-        titleField.setText(note.getTitle());
-        contentArea.setText(note.getContent());
+        loadingEditor = true;
+        try {
+            titleField.setText(note.getTitle());
+            contentArea.setText(note.getContent());
+        } finally {
+            loadingEditor = false;
+        }
 
         listViewbox.setVisible(false);
         editorViewbox.setVisible(true);
@@ -115,7 +152,9 @@ public class NotesController {
 
     @FXML
     private void handleBack() {
-        saveCurrentNote();
+        if (currentNote != null && currentNote.getId() != null) {
+            autoSave.flush(currentNote.getId());
+        }
         editorViewbox.setVisible(false);
         listViewbox.setVisible(true);
         notesListView.getSelectionModel().clearSelection();
@@ -138,14 +177,108 @@ public class NotesController {
 
             alert.showAndWait().ifPresent(response -> {
                 if (response == javafx.scene.control.ButtonType.OK) {
-                    noteService.deleteNote(currentNote.getId());
-                    notes.remove(currentNote);
+                    autoSave.discard(currentNote.getId());
+                    Long id = currentNote.getId();
+                    noteService.deleteNote(id);
+                    notes.removeIf(summary -> summary.getId().equals(id));
                     handleBack();
                 }
             });
         }
     }
 
+    /**
+     * List the note's saved revisions; picking one shows its text, which
+     * Restore puts back in the editor to be saved as a new revision.
+     */
+    @FXML
+    private void handleShowHistory() {
+        if (currentNote == null || currentNote.getId() == null) {
+            return;
+        }
+        long noteId = currentNote.getId();
+        // The newest edits belong in the list
+        autoSave.flush(noteId);
+
+        Stage dialogStage = new Stage();
+        dialogStage.initModality(Modality.APPLICATION_MODAL);
+        dialogStage.initStyle(StageStyle.TRANSPARENT);
+        dialogStage.initOwner(titleField.getScene().getWindow());
+
+        VBox card = new VBox(12);
+        card.getStyleClass().add("custom-repeat-dialog");
+        card.setPadding(new Insets(24));
+        card.setMaxWidth(380);
+        card.setMaxHeight(Region.USE_PREF_SIZE);
+
+        Label titleLabel = new Label("History");
+        titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: #e0e0e0;");
+
+        ListView<NoteRepository.Revision> revisionList = new ListView<>(
+                FXCollections.observableArrayList(noteService.getRevisions(noteId)));
+        revisionList.getStyleClass().add("custom-list-view");
+        revisionList.setPrefHeight(140);
+        revisionList.setCellFactory(param -> new ListCell<>() {
+            @Override
+            protected void updateItem(NoteRepository.Revision item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(REVISION_TIME.format(item.createdAt().atZone(ZoneId.systemDefault()))
+                            + "  " + item.title());
+                }
+            }
+        });
+
+        TextArea contentPreview = new TextArea();
+        contentPreview.setEditable(false);
+        contentPreview.setWrapText(true);
+        contentPreview.setPrefHeight(160);
+        contentPreview.getStyleClass().add("content-area");
+
+        Button restoreBtn = new Button("Restore");
+        restoreBtn.getStyleClass().add("action-btn");
+        restoreBtn.setDisable(true);
+        revisionList.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            String content = newVal == null ? null
+                    : noteService.getContentAt(noteId, newVal.revision()).orElse(null);
+            contentPreview.setText(content == null ? "" : content);
+            restoreBtn.setDisable(content == null);
+        });
+        restoreBtn.setOnAction(e -> {
+            NoteRepository.Revision revision = revisionList.getSelectionModel().getSelectedItem();
+            dialogStage.close();
+            if (revision != null) {
+                titleField.setText(revision.title());
+                contentArea.setText(contentPreview.getText());
+            }
+        });
+
+        Button closeBtn = new Button("Close");
+        closeBtn.getStyleClass().add("icon-btn");
+        closeBtn.setOnAction(e -> dialogStage.close());
+        HBox buttonRow = new HBox(8, closeBtn, restoreBtn);
+        buttonRow.setAlignment(Pos.CENTER_RIGHT);
+
+        card.getChildren().addAll(titleLabel, revisionList, contentPreview, buttonRow);
+
+        StackPane overlay = new StackPane(card);
+        overlay.setStyle("-fx-background-color: rgba(0,0,0,0.5);");
+        overlay.setAlignment(Pos.CENTER);
+        overlay.setOnMouseClicked(event -> {
+            if (event.getTarget() == overlay) {
+                dialogStage.close();
+            }
+        });
+
+        Scene scene = new Scene(overlay, 450, 500);
+        scene.setFill(Color.TRANSPARENT);
+        scene.getStylesheets().add(getClass().getResource("styles.css").toExternalForm());
+        dialogStage.setScene(scene);
+        dialogStage.showAndWait();
+    }
+
     @FXML
     private void handleAddLink() {
         if (currentNote == null || currentNote.getId() == null)
@@ -182,30 +315,66 @@ public class NotesController {
     private void setupAutoSave() {
         titleField.textProperty().addListener((obs, old, newVal) -> scheduleAutoSave());
         contentArea.textProperty().addListener((obs, old, newVal) -> scheduleAutoSave());
+        autoSave.addStateListener(this::showSaveState);
     }
 
     private void scheduleAutoSave() {
-        if (autoSaveTimer != null) {
-            autoSaveTimer.cancel();
+        if (loadingEditor || currentNote == null || currentNote.getId() == null) {
+            return;
         }
-        statusLabel.setText("Unsaved...");
-        autoSaveTimer = new Timer();
-        autoSaveTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                Platform.runLater(() -> {
-                    saveCurrentNote();
+        currentNote.setTitle(titleField.getText());
+        currentNote.setContent(contentArea.getText());
+        autoSave.scheduleSave(currentNote.getId(), titleField.getText(), contentArea.getText());
+    }
+
+    private void showSaveState(long noteId, NoteAutoSaveService.State state, Instant updatedAt) {
+        if (currentNote == null || currentNote.getId() == null || currentNote.getId() != noteId) {
+            return;
+        }
+        switch (state) {
+            case UNSAVED -> statusLabel.setText("Unsaved...");
+            case SAVING -> statusLabel.setText("Saving...");
+            case SAVED -> {
+                currentNote.setUpdatedAt(updatedAt);
+                // A newer edit may already be queued behind this save
+                if (!autoSave.hasPendingChanges(noteId)) {
                     statusLabel.setText("Saved");
-                });
+                }
             }
-        }, 800);
+            case FAILED -> statusLabel.setText("Save failed");
+        }
     }
 
-    private void saveCurrentNote() {
-        if (currentNote != null) {
-            currentNote.setTitle(titleField.getText());
-            currentNote.setContent(contentArea.getText());
-            noteService.saveNote(currentNote);
+    /**
+     * Title with the start of the note's text beneath it.
+     */
+    private class NoteSummaryCell extends ListCell<NoteSummary> {
+        private final VBox content = new VBox(2);
+        private final Label titleLabel = new Label();
+        private final Label previewLabel = new Label();
+
+        NoteSummaryCell() {
+            titleLabel.setStyle("-fx-text-fill: #e0e0e0; -fx-font-size: 13px;");
+            previewLabel.setStyle("-fx-text-fill: #888; -fx-font-size: 11px;");
+            content.getChildren().addAll(titleLabel, previewLabel);
+        }
+
+        @Override
+        protected void updateItem(NoteSummary item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(null);
+            if (empty || item == null) {
+                setGraphic(null);
+            } else {
+                titleLabel.setText(item.getTitle());
+                String preview = item.getPreview();
+                previewLabel.setText(preview);
+                boolean hasPreview = preview != null && !preview.isBlank();
+                previewLabel.setVisible(hasPreview);
+                previewLabel.setManaged(hasPreview);
+                setGraphic(content);
+                notesLoader.onCellShown(getIndex());
+            }
         }
     }
 
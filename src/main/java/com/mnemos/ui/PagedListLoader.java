@@ -0,0 +1,67 @@
+package com.mnemos.ui;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+/**
+ * Fills a list view one keyset page at a time. The first page is loaded by
+ * {@link #reload()}; further pages are fetched when a cell near the end of
+ * the loaded items is shown, so memory is bounded by what was scrolled to.
+ * Each page is fetched after the last loaded item, which carries its own
+ * sort key, so edits and deletes since then do not shift the pages.
+ */
+class PagedListLoader<T> {
+    static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final ObservableList<T> items;
+    private final BiFunction<T, Integer, List<T>> pageFetcher;
+    private final int pageSize;
+    private boolean hasMore = true;
+    private boolean loadPending = false;
+
+    PagedListLoader(ObservableList<T> items, BiFunction<T, Integer, List<T>> pageFetcher) {
+        this(items, pageFetcher, DEFAULT_PAGE_SIZE);
+    }
+
+    PagedListLoader(ObservableList<T> items, BiFunction<T, Integer, List<T>> pageFetcher, int pageSize) {
+        this.items = items;
+        this.pageFetcher = pageFetcher;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Replace the items with the first page.
+     */
+    void reload() {
+        List<T> page = pageFetcher.apply(null, pageSize);
+        hasMore = page.size() == pageSize;
+        items.setAll(page);
+    }
+
+    /**
+     * Call from a cell's updateItem. Schedules the next page once the cell
+     * for the last loaded item is shown.
+     */
+    void onCellShown(int index) {
+        if (hasMore && !loadPending && index >= items.size() - 1) {
+            // Cells update during layout; change the items afterwards
+            loadPending = true;
+            Platform.runLater(() -> {
+                loadPending = false;
+                loadMore();
+            });
+        }
+    }
+
+    void loadMore() {
+        if (!hasMore) {
+            return;
+        }
+        T after = items.isEmpty() ? null : items.get(items.size() - 1);
+        List<T> page = pageFetcher.apply(after, pageSize);
+        hasMore = page.size() == pageSize;
+        items.addAll(page);
+    }
+}
@@ -3,9 +3,13 @@ package com.mnemos.ui;
 import com.mnemos.model.Task;
 import com.mnemos.model.LinkedItem;
 import com.mnemos.model.Link.ItemType;
+import com.mnemos.repository.TaskOccurrenceRepository;
+import com.mnemos.repository.TaskRepository;
+import com.mnemos.service.TaskDependencyGraph;
 import com.mnemos.service.TaskService;
 import com.mnemos.service.StreakService;
 import com.mnemos.service.LinkService;
+import com.mnemos.service.TaskCleanupService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -31,7 +35,11 @@ import com.mnemos.App;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class TasksController {
 
@@ -51,11 +59,17 @@ public class TasksController {
     @FXML
     private Label streakLabel;
     @FXML
+    private Label criticalPathLabel;
+    @FXML
     private VBox linkedItemsSection;
     @FXML
     private ListView<LinkedItem> linkedItemsListView;
     @FXML
     private javafx.scene.control.Button deleteAllDoneBtn;
+    @FXML
+    private javafx.scene.control.ToggleGroup filterGroup;
+
+    private static final int AGENDA_DAYS = 14;
 
     private final TaskService taskService = new TaskService();
     private final StreakService streakService = new StreakService();
@@ -108,12 +122,45 @@ public class TasksController {
 
         loadTasks();
         updateStreakDisplay();
+        TaskCleanupService.getInstance().addDeletedListener(this::removeTaskRows);
 
         taskTitleField.focusedProperty().addListener((obs, oldVal, newVal) -> updateFloatingLabel());
         taskTitleField.textProperty().addListener((obs, oldVal, newVal) -> updateFloatingLabel());
         updateFloatingLabel();
     }
 
+    /**
+     * Put the cursor in the new task field.
+     */
+    public void focusNewTask() {
+        taskTitleField.requestFocus();
+    }
+
+    /**
+     * Select the task with the given id, switching to the Pending or Done
+     * list it is in.
+     */
+    public void showTask(long id) {
+        taskService.getTaskById(id).ifPresent(task -> {
+            if (task.getStatus() != currentFilter) {
+                boolean completed = task.getStatus() == Status.COMPLETED;
+                filterGroup.selectToggle(filterGroup.getToggles().get(completed ? 1 : 0));
+                if (completed) {
+                    handleFilterCompleted();
+                } else {
+                    handleFilterPending();
+                }
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                if (tasks.get(i).getId() != null && tasks.get(i).getId() == id) {
+                    tasksListView.getSelectionModel().select(i);
+                    tasksListView.scrollTo(i);
+                    break;
+                }
+            }
+        });
+    }
+
     private void updateFloatingLabel() {
         boolean isFocused = taskTitleField.isFocused();
         boolean hasText = taskTitleField.getText() != null && !taskTitleField.getText().isEmpty();
@@ -141,25 +188,69 @@ public class TasksController {
     }
 
     private void loadTasks() {
-        tasks.clear();
-        if (currentFilter == null) {
-            tasks.addAll(taskService.getAllTasks());
-        } else {
-            tasks.addAll(taskService.getTasksByStatus(currentFilter));
+        // Filtered and sorted by priority then due date in SQL
+        tasks.setAll(taskService.getTasksByStatus(currentFilter));
+        updateCriticalPathDisplay();
+    }
+
+    /**
+     * Show how long the longest chain of dependent tasks still takes, with
+     * the chain itself in the tooltip.
+     */
+    private void updateCriticalPathDisplay() {
+        long[] path = taskService.getCriticalPath();
+        boolean visible = path.length > 1;
+        criticalPathLabel.setVisible(visible);
+        criticalPathLabel.setManaged(visible);
+        if (!visible) {
+            return;
         }
-        tasks.sort((t1, t2) -> {
-            int p1 = getPriorityOrder(t1.getPriority());
-            int p2 = getPriorityOrder(t2.getPriority());
-            return Integer.compare(p1, p2);
-        });
+        int length = taskService.getCriticalPathLength();
+        criticalPathLabel.setText("⛓ Critical path: " + length + (length == 1 ? " pomodoro" : " pomodoros"));
+
+        Map<Long, String> titles = new HashMap<>();
+        for (Task task : taskService.getTasksById(path)) {
+            titles.put(task.getId(), task.getTitle());
+        }
+        StringBuilder chain = new StringBuilder("Longest chain of unfinished work:");
+        for (long id : path) {
+            chain.append("\n• ").append(titles.getOrDefault(id, "(deleted)"));
+        }
+        criticalPathLabel.setTooltip(new Tooltip(chain.toString()));
     }
 
-    private int getPriorityOrder(Priority priority) {
-        return switch (priority) {
-            case HIGH -> 0;
-            case MEDIUM -> 1;
-            case LOW -> 2;
-        };
+    /**
+     * Drop rows for tasks deleted in the background.
+     */
+    private void removeTaskRows(long[] ids) {
+        Set<Long> deleted = new HashSet<>();
+        for (long id : ids) {
+            deleted.add(id);
+        }
+        tasks.removeIf(task -> task.getId() != null && deleted.contains(task.getId()));
+    }
+
+    /**
+     * Redraw only the rows of tasks that depend on the given one, whose
+     * blocked state may have changed with its status.
+     */
+    private void refreshDownstreamRows(Task task) {
+        if (task.getId() == null) {
+            return;
+        }
+        Set<Long> affected = new HashSet<>();
+        for (TaskRepository.DownstreamTask downstream : taskService.getDownstreamTasks(task.getId())) {
+            affected.add(downstream.id());
+        }
+        if (affected.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            Task row = tasks.get(i);
+            if (affected.contains(row.getId())) {
+                tasks.set(i, row);
+            }
+        }
     }
 
     @FXML
@@ -420,6 +511,95 @@ public class TasksController {
         dialogStage.showAndWait();
     }
 
+    /**
+     * Everything due in the next two weeks, including future dates of
+     * recurring tasks, grouped by day. Clicking an entry selects its task.
+     */
+    @FXML
+    private void handleShowAgenda() {
+        Stage dialogStage = new Stage();
+        dialogStage.initModality(Modality.APPLICATION_MODAL);
+        dialogStage.initStyle(StageStyle.TRANSPARENT);
+        dialogStage.initOwner(tasksListView.getScene().getWindow());
+
+        VBox card = new VBox(12);
+        card.getStyleClass().add("custom-repeat-dialog");
+        card.setPadding(new Insets(24));
+        card.setMaxWidth(380);
+        card.setMaxHeight(Region.USE_PREF_SIZE);
+
+        Label titleLabel = new Label("Agenda");
+        titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: #e0e0e0;");
+
+        LocalDate today = LocalDate.now();
+        LocalDate until = today.plusDays(AGENDA_DAYS - 1);
+        VBox days = new VBox(6);
+        LocalDate currentDay = null;
+        for (TaskOccurrenceRepository.Occurrence occurrence : taskService.getAgenda(today, until)) {
+            if (!occurrence.date().equals(currentDay)) {
+                currentDay = occurrence.date();
+                Label dayLabel = new Label(agendaDay(currentDay, today));
+                dayLabel.getStyleClass().add("dialog-section-label");
+                days.getChildren().add(dayLabel);
+            }
+            Label entry = new Label("• " + occurrence.title());
+            String color = switch (occurrence.priority()) {
+                case HIGH -> "#ff6b6b";
+                case MEDIUM -> "#ffbd2e";
+                case LOW -> "#ccc";
+            };
+            entry.setStyle("-fx-font-size: 12px; -fx-cursor: hand; -fx-text-fill: " + color + ";");
+            entry.setOnMouseClicked(event -> {
+                dialogStage.close();
+                showTask(occurrence.taskId());
+            });
+            days.getChildren().add(entry);
+        }
+        if (days.getChildren().isEmpty()) {
+            Label empty = new Label("Nothing due in the next " + AGENDA_DAYS + " days.");
+            empty.setStyle("-fx-text-fill: #666; -fx-font-size: 11px; -fx-font-style: italic;");
+            days.getChildren().add(empty);
+        }
+
+        ScrollPane scroll = new ScrollPane(days);
+        scroll.setFitToWidth(true);
+        scroll.setPrefHeight(300);
+        scroll.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
+
+        Button closeBtn = new Button("Close");
+        closeBtn.getStyleClass().add("icon-btn");
+        closeBtn.setOnAction(e -> dialogStage.close());
+        HBox buttonRow = new HBox(closeBtn);
+        buttonRow.setAlignment(Pos.CENTER_RIGHT);
+
+        card.getChildren().addAll(titleLabel, scroll, buttonRow);
+
+        StackPane overlay = new StackPane(card);
+        overlay.setStyle("-fx-background-color: rgba(0,0,0,0.5);");
+        overlay.setAlignment(Pos.CENTER);
+        overlay.setOnMouseClicked(event -> {
+            if (event.getTarget() == overlay) {
+                dialogStage.close();
+            }
+        });
+
+        Scene scene = new Scene(overlay, 450, 460);
+        scene.setFill(Color.TRANSPARENT);
+        scene.getStylesheets().add(getClass().getResource("styles.css").toExternalForm());
+        dialogStage.setScene(scene);
+        dialogStage.showAndWait();
+    }
+
+    private static String agendaDay(LocalDate day, LocalDate today) {
+        if (day.equals(today)) {
+            return "Today";
+        }
+        if (day.equals(today.plusDays(1))) {
+            return "Tomorrow";
+        }
+        return day.format(java.time.format.DateTimeFormatter.ofPattern("EEE, MMM d"));
+    }
+
     @FXML
     private void handleFilterPending() {
         currentFilter = Status.PENDING;
@@ -465,6 +645,9 @@ public class TasksController {
         private final javafx.scene.control.Label titleLabel = new javafx.scene.control.Label();
         private final javafx.scene.control.Label priorityLabel = new javafx.scene.control.Label();
         private final javafx.scene.control.Label dueDateLabel = new javafx.scene.control.Label();
+        private final javafx.scene.control.Label blockedLabel = new javafx.scene.control.Label("Blocked");
+        private final javafx.scene.control.Label blocksLabel = new javafx.scene.control.Label();
+        private final Tooltip blocksTooltip = new Tooltip();
         private final javafx.scene.control.Button reminderButton = new javafx.scene.control.Button();
         private final javafx.scene.control.Button timerButton = new javafx.scene.control.Button();
         private final javafx.scene.control.Button deleteButton = new javafx.scene.control.Button();
@@ -498,9 +681,20 @@ public class TasksController {
                         alert.showAndWait();
                     }
 
-                    updateItem(item, false);
-                    if (currentFilter != null) {
+                    if (item.getStatus() == oldStatus) {
+                        updateItem(item, false);
+                    } else if (item.getRecurrenceType() != null
+                            && item.getRecurrenceType() != Task.RecurrenceType.NONE) {
+                        // Completing may have added the next occurrence
                         loadTasks();
+                    } else {
+                        if (currentFilter != null && item.getStatus() != currentFilter) {
+                            tasks.remove(item);
+                        } else {
+                            updateItem(item, false);
+                        }
+                        refreshDownstreamRows(item);
+                        updateCriticalPathDisplay();
                     }
                 }
             });
@@ -515,6 +709,12 @@ public class TasksController {
             dueDateLabel.setStyle(
                     "-fx-font-size: 10px; -fx-font-weight: bold; -fx-padding: 3 6; -fx-background-radius: 4;");
 
+            blockedLabel.setStyle(
+                    "-fx-font-size: 10px; -fx-font-weight: bold; -fx-padding: 3 6; -fx-background-radius: 4;"
+                            + "-fx-background-color: rgba(255, 255, 255, 0.05); -fx-text-fill: #999;");
+            blockedLabel.setTooltip(new Tooltip("Waiting on unfinished tasks"));
+            blocksLabel.setTooltip(blocksTooltip);
+
             timerButton.setText("Timer");
             timerButton.setMinWidth(50);
             timerButton.setMaxWidth(50);
@@ -567,13 +767,16 @@ public class TasksController {
                         if (response == javafx.scene.control.ButtonType.OK) {
                             taskService.deleteTask(item.getId());
                             tasks.remove(item);
+                            updateCriticalPathDisplay();
                         }
                     });
                 }
             });
 
             content.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
-            content.getChildren().addAll(statusCheckBox, titleLabel, priorityLabel, dueDateLabel, reminderButton,
+            content.getChildren().addAll(statusCheckBox, titleLabel, blockedLabel, blocksLabel, priorityLabel,
+                    dueDateLabel,
+                    reminderButton,
                     timerButton,
                     deleteButton);
         }
@@ -637,6 +840,12 @@ public class TasksController {
                     dueDateLabel.setManaged(false);
                 }
 
+                boolean blocked = item.getId() != null && item.getStatus() != Status.COMPLETED
+                        && taskService.isBlocked(item.getId());
+                blockedLabel.setVisible(blocked);
+                blockedLabel.setManaged(blocked);
+                updateBlocksLabel(item);
+
                 // Strike through if completed
                 if (item.getStatus() == Status.COMPLETED) {
                     titleLabel.setStyle("-fx-font-size: 13px; -fx-strikethrough: true; -fx-text-fill: #888;");
@@ -648,6 +857,33 @@ public class TasksController {
                 setText(null);
             }
         }
+
+        /**
+         * How much unfinished work waits on a pending task, highlighted when
+         * the task is on the critical path.
+         */
+        private void updateBlocksLabel(Task item) {
+            TaskDependencyGraph.Timing timing = item.getId() == null || item.getStatus() == Status.COMPLETED
+                    ? null
+                    : taskService.getTiming(item.getId());
+            boolean visible = timing != null && timing.blockedCount() > 0;
+            blocksLabel.setVisible(visible);
+            blocksLabel.setManaged(visible);
+            if (!visible) {
+                return;
+            }
+            boolean critical = timing.slack() == 0;
+            blocksLabel.setText("⛓ Blocks " + timing.blockedCount());
+            blocksLabel.setStyle(
+                    "-fx-font-size: 10px; -fx-font-weight: bold; -fx-padding: 3 6; -fx-background-radius: 4;"
+                            + (critical
+                                    ? "-fx-background-color: rgba(255, 95, 86, 0.2); -fx-text-fill: #ff6b6b;"
+                                    : "-fx-background-color: rgba(255, 255, 255, 0.05); -fx-text-fill: #999;"));
+            blocksTooltip.setText(timing.blockedCount() + " unfinished task(s) wait on this. "
+                    + (critical
+                            ? "It is on the critical path: any delay pushes back the overall finish."
+                            : "It can slip " + timing.slack() + " pomodoro(s) without delaying the overall finish."));
+        }
     }
 
     private void showPomodoroDialog(Task task) {
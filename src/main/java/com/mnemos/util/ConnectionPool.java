@@ -0,0 +1,294 @@
+package com.mnemos.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Small bounded pool of long-lived SQLite connections.
+ * Connections are opened lazily up to {@code maxSize}; the per-connection
+ * pragmas run once when a connection is opened, not on every borrow.
+ * Each connection keeps a {@link StatementCache}, so prepareStatement calls
+ * reuse compiled statements across borrows. Closing a borrowed connection
+ * returns it to the pool.
+ */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    private final String name;
+    private final String url;
+    private final int maxSize;
+    private final List<String> pragmas;
+
+    private final LinkedBlockingQueue<PhysicalConnection> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    public ConnectionPool(String name, String url, int maxSize, List<String> pragmas) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.name = name;
+        this.url = url;
+        this.maxSize = maxSize;
+        this.pragmas = List.copyOf(pragmas);
+    }
+
+    /**
+     * Borrow a connection. The returned connection must be closed to give it back.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool '" + name + "' is closed");
+        }
+
+        long start = System.nanoTime();
+        PhysicalConnection physical = idle.poll();
+
+        if (physical == null) {
+            physical = tryCreate();
+        }
+
+        if (physical == null) {
+            try {
+                physical = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+            if (physical == null) {
+                throw new SQLException("Timed out waiting for a connection from pool '" + name + "'");
+            }
+        }
+
+        recordWait(System.nanoTime() - start);
+        return wrap(physical);
+    }
+
+    private PhysicalConnection tryCreate() throws SQLException {
+        while (true) {
+            int current = created.get();
+            if (current >= maxSize) {
+                return null;
+            }
+            if (created.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        try {
+            Connection conn = DriverManager.getConnection(url);
+            try (Statement stmt = conn.createStatement()) {
+                for (String pragma : pragmas) {
+                    stmt.execute(pragma);
+                }
+            }
+            logger.debug("Opened connection {} of {} for pool '{}'", created.get(), maxSize, name);
+            return new PhysicalConnection(conn, new StatementCache(conn, STATEMENT_CACHE_SIZE, statementCounters));
+        } catch (SQLException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void release(PhysicalConnection physical) {
+        try {
+            if (physical.connection.isClosed()) {
+                discard(physical);
+                return;
+            }
+            if (!physical.connection.getAutoCommit()) {
+                physical.connection.rollback();
+                physical.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.warn("Discarding broken connection from pool '{}'", name, e);
+            discard(physical);
+            return;
+        }
+
+        if (closed) {
+            discard(physical);
+        } else {
+            idle.offer(physical);
+        }
+    }
+
+    private void discard(PhysicalConnection physical) {
+        created.decrementAndGet();
+        physical.statements.closeAll();
+        try {
+            physical.connection.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing discarded connection", e);
+        }
+    }
+
+    private Connection wrap(PhysicalConnection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new PooledConnectionHandler(physical));
+    }
+
+    /**
+     * Close all idle connections and refuse further borrows. Connections still
+     * in use are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        PhysicalConnection conn;
+        while ((conn = idle.poll()) != null) {
+            discard(conn);
+        }
+    }
+
+    public PoolStats getStats() {
+        int total = created.get();
+        int idleCount = idle.size();
+        return new PoolStats(
+                name,
+                total,
+                idleCount,
+                Math.max(0, total - idleCount),
+                borrowCount.sum(),
+                totalWaitNanos.sum(),
+                maxWaitNanos.get(),
+                statementCounters.hits.sum(),
+                statementCounters.misses.sum(),
+                statementCounters.evictions.sum());
+    }
+
+    /**
+     * Snapshot of pool usage counters.
+     */
+    public record PoolStats(String name, int totalConnections, int idleConnections, int activeConnections,
+            long borrowCount, long totalWaitNanos, long maxWaitNanos,
+            long statementHits, long statementMisses, long statementEvictions) {
+
+        public double averageWaitMillis() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+        }
+
+        public double statementHitRate() {
+            long lookups = statementHits + statementMisses;
+            return lookups == 0 ? 0 : (double) statementHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s: %d connections (%d idle, %d active), %d borrows, avg wait %.3f ms, max wait %.3f ms, "
+                            + "statements %d hits / %d misses / %d evictions",
+                    name, totalConnections, idleConnections, activeConnections, borrowCount,
+                    averageWaitMillis(), maxWaitNanos / 1_000_000.0,
+                    statementHits, statementMisses, statementEvictions);
+        }
+    }
+
+    private static class PhysicalConnection {
+        final Connection connection;
+        final StatementCache statements;
+
+        PhysicalConnection(Connection connection, StatementCache statements) {
+            this.connection = connection;
+            this.statements = statements;
+        }
+    }
+
+    /**
+     * Delegates to the physical connection until closed, then releases any
+     * statements still handed out and gives the connection back to the pool.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private final List<StatementCache.Lease> leases = new ArrayList<>();
+        private boolean returned = false;
+
+        PooledConnectionHandler(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        for (StatementCache.Lease lease : leases) {
+                            lease.release();
+                        }
+                        leases.clear();
+                        release(physical);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + name + "] " + physical.connection;
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                }
+            }
+
+            if (method.getName().equals("prepareStatement") && args.length <= 2 && args[0] instanceof String sql) {
+                int autoGeneratedKeys = Statement.NO_GENERATED_KEYS;
+                if (args.length == 2) {
+                    if (!(args[1] instanceof Integer flag)) {
+                        return invokePhysical(method, args);
+                    }
+                    autoGeneratedKeys = flag;
+                }
+                return physical.statements.prepare((Connection) proxy, sql, autoGeneratedKeys, leases);
+            }
+
+            return invokePhysical(method, args);
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(physical.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
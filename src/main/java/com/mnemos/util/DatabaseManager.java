@@ -1,14 +1,46 @@
 package com.mnemos.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DatabaseManager {
-    private static final String DB_URL = "jdbc:sqlite:mnemos.db";
+    // Overridable with -Dmnemos.db=path, e.g. so tests use their own database
+    private static final String DB_URL = "jdbc:sqlite:" + System.getProperty("mnemos.db", "mnemos.db");
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
+    private static final int READER_POOL_SIZE = 4;
+
+    /**
+     * Journal configuration for mnemos.db. WAL lets readers work against a
+     * snapshot while the single writer commits; ROLLBACK_JOURNAL keeps the
+     * SQLite defaults. Selected with -Dmnemos.storage=WAL|ROLLBACK_JOURNAL.
+     */
+    public enum StorageMode {
+        WAL(List.of(
+                "PRAGMA journal_mode = WAL;",
+                "PRAGMA synchronous = NORMAL;",
+                "PRAGMA cache_size = -8000;",
+                "PRAGMA mmap_size = 268435456;",
+                "PRAGMA temp_store = MEMORY;")),
+        ROLLBACK_JOURNAL(List.of(
+                "PRAGMA journal_mode = DELETE;",
+                "PRAGMA synchronous = FULL;"));
+
+        private final List<String> pragmas;
+
+        StorageMode(List<String> pragmas) {
+            this.pragmas = pragmas;
+        }
+    }
 
     static {
         try {
@@ -18,138 +50,193 @@ public class DatabaseManager {
         }
     }
 
-    public static Connection connect() throws SQLException {
-        Connection conn = DriverManager.getConnection(DB_URL);
-        // Enforce foreign keys
-        try (var stmt = conn.createStatement()) {
-            stmt.execute("PRAGMA foreign_keys = ON;");
+    private static final StorageMode storageMode = resolveStorageMode();
+
+    // Applied once per physical connection when a pool opens it
+    private static final ConnectionPool writerPool = new ConnectionPool("mnemos-writer", DB_URL, 1,
+            pragmas(storageMode, false));
+    private static final ConnectionPool readerPool = new ConnectionPool("mnemos-reader", DB_URL,
+            READER_POOL_SIZE, pragmas(storageMode, true));
+
+    private static volatile Thread writerThread;
+    // Connection borrowed by the write currently running; only touched on the writer thread
+    private static Connection activeWriterConnection;
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mnemos-db-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        return thread;
+    });
+
+    private static StorageMode resolveStorageMode() {
+        String configured = System.getProperty("mnemos.storage", StorageMode.WAL.name());
+        try {
+            return StorageMode.valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown storage mode '{}', falling back to WAL", configured);
+            return StorageMode.WAL;
         }
-        return conn;
     }
 
-    public static void initialize() {
-        String noteTable = """
-                    CREATE TABLE IF NOT EXISTS notes (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        title TEXT,
-                        content TEXT,
-                        created_at INTEGER,
-                        updated_at INTEGER
-                    );
-                """;
-
-        String taskTable = """
-                    CREATE TABLE IF NOT EXISTS tasks (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        title TEXT,
-                        priority TEXT,
-                        due_date TEXT,
-                        status TEXT,
-                        completed_at INTEGER,
-                        pomodoro_count INTEGER DEFAULT 0
-                    );
-                """;
-
-        String fileTable = """
-                    CREATE TABLE IF NOT EXISTS files (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        name TEXT,
-                        path TEXT,
-                        type TEXT,
-                        added_at INTEGER
-                    );
-                """;
-
-        String streakTable = """
-                    CREATE TABLE IF NOT EXISTS streaks (
-                        id INTEGER PRIMARY KEY,
-                        current_streak INTEGER DEFAULT 0,
-                        last_completion_date TEXT,
-                        longest_streak INTEGER DEFAULT 0
-                    );
-                """;
-
-        String settingsTable = """
-                    CREATE TABLE IF NOT EXISTS app_settings (
-                        key TEXT PRIMARY KEY,
-                        value TEXT
-                    );
-                """;
-
-        String linksTable = """
-                    CREATE TABLE IF NOT EXISTS links (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        source_type TEXT NOT NULL,
-                        source_id INTEGER NOT NULL,
-                        target_type TEXT NOT NULL,
-                        target_id INTEGER NOT NULL,
-                        created_at INTEGER,
-                        UNIQUE(source_type, source_id, target_type, target_id)
-                    );
-                """;
-
-        try (Connection conn = connect();
-                var stmt = conn.createStatement()) {
-
-            stmt.execute(noteTable);
-            stmt.execute(taskTable);
-            stmt.execute(fileTable);
-            stmt.execute(streakTable);
-            stmt.execute(settingsTable);
-            stmt.execute(linksTable);
-
-            // Initialize streak record if not exists
-            stmt.execute(
-                    "INSERT OR IGNORE INTO streaks (id, current_streak, last_completion_date, longest_streak) VALUES (1, 0, NULL, 0)");
-
-            // Migration: Add completed_at column if it doesn't exist
-            try {
-                stmt.execute("ALTER TABLE tasks ADD COLUMN completed_at INTEGER");
-                logger.info("Added completed_at column to tasks table");
-            } catch (SQLException e) {
-                // Column already exists, ignore
+    private static List<String> pragmas(StorageMode mode, boolean readOnly) {
+        List<String> pragmas = new ArrayList<>();
+        pragmas.add("PRAGMA foreign_keys = ON;");
+        pragmas.add("PRAGMA busy_timeout = 5000;");
+        if (readOnly) {
+            // journal_mode is persistent in the file; the writer sets it
+            mode.pragmas.stream().filter(p -> !p.contains("journal_mode")).forEach(pragmas::add);
+            pragmas.add("PRAGMA query_only = ON;");
+        } else {
+            pragmas.addAll(mode.pragmas);
+        }
+        return pragmas;
+    }
+
+    /**
+     * Borrow a pooled read-only connection. Closing it returns it to the pool.
+     * All modifications must go through {@link #write(SqlFunction)}.
+     */
+    public static Connection connect() throws SQLException {
+        return readerPool.borrow();
+    }
+
+    /**
+     * Run a modification on the dedicated writer thread and wait for its result.
+     * Writes are serialized; calls made from the writer thread run inline.
+     */
+    public static <T> T write(SqlFunction<T> work) throws SQLException {
+        if (Thread.currentThread() == writerThread) {
+            return runOnWriter(work);
+        }
+
+        Future<T> future = writer.submit(() -> runOnWriter(work));
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
             }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException("Database write failed", cause);
+        }
+    }
 
-            // Migration: Add pomodoro_count column if it doesn't exist
+    /**
+     * {@link #write(SqlFunction)} for work with no result.
+     */
+    public static void writeAction(SqlAction action) throws SQLException {
+        write(conn -> {
+            action.run(conn);
+            return null;
+        });
+    }
+
+    /**
+     * Queue a modification on the writer thread without blocking the caller.
+     */
+    public static <T> CompletableFuture<T> writeAsync(SqlFunction<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        writer.execute(() -> {
             try {
-                stmt.execute("ALTER TABLE tasks ADD COLUMN pomodoro_count INTEGER DEFAULT 0");
-                logger.info("Added pomodoro_count column to tasks table");
-            } catch (SQLException e) {
-                // Column already exists, ignore
+                result.complete(runOnWriter(work));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
             }
+        });
+        return result;
+    }
 
-            // Migration: Add recurrence and reminder columns
+    /**
+     * Run a modification on the writer thread inside a single transaction.
+     * Commits when the work returns and rolls back if it throws. Called from
+     * within another transaction, the work simply joins it.
+     */
+    public static <T> T writeInTransaction(SqlFunction<T> work) throws SQLException {
+        return write(conn -> {
+            if (!conn.getAutoCommit()) {
+                return work.apply(conn);
+            }
+            conn.setAutoCommit(false);
             try {
-                stmt.execute("ALTER TABLE tasks ADD COLUMN recurrence_type TEXT");
-                stmt.execute("ALTER TABLE tasks ADD COLUMN recurrence_interval INTEGER");
-                stmt.execute("ALTER TABLE tasks ADD COLUMN recurrence_end_date TEXT");
-                stmt.execute("ALTER TABLE tasks ADD COLUMN reminder_date TEXT");
-                logger.info("Added recurrence and reminder columns to tasks table");
-            } catch (SQLException e) {
+                T result = work.apply(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        });
+    }
+
+    /**
+     * {@link #writeInTransaction(SqlFunction)} for work with no result.
+     */
+    public static void runInTransaction(SqlAction action) throws SQLException {
+        writeInTransaction(conn -> {
+            action.run(conn);
+            return null;
+        });
+    }
 
-            // Migration: Add custom recurrence columns
+    private static <T> T runOnWriter(SqlFunction<T> work) throws SQLException {
+        if (activeWriterConnection != null) {
+            // Nested write: the pool has a single writer connection, and it is ours
+            return work.apply(activeWriterConnection);
+        }
+        try (Connection conn = writerPool.borrow()) {
+            activeWriterConnection = conn;
             try {
-                stmt.execute("ALTER TABLE tasks ADD COLUMN recurrence_unit TEXT");
-                stmt.execute("ALTER TABLE tasks ADD COLUMN recurrence_days TEXT");
-                stmt.execute("ALTER TABLE tasks ADD COLUMN recurrence_max_occurrences INTEGER DEFAULT 0");
-                logger.info("Added custom recurrence columns to tasks table");
-            } catch (SQLException e) {
+                return work.apply(conn);
+            } finally {
+                activeWriterConnection = null;
             }
+        }
+    }
 
-            String taskDependenciesTable = """
-                    CREATE TABLE IF NOT EXISTS task_dependencies (
-                        predecessor_id INTEGER NOT NULL,
-                        successor_id INTEGER NOT NULL,
-                        PRIMARY KEY (predecessor_id, successor_id),
-                        FOREIGN KEY(predecessor_id) REFERENCES tasks(id) ON DELETE CASCADE,
-                        FOREIGN KEY(successor_id) REFERENCES tasks(id) ON DELETE CASCADE
-                    );
-                    """;
-            stmt.execute(taskDependenciesTable);
+    public static StorageMode getStorageMode() {
+        return storageMode;
+    }
 
-            logger.info("Database initialized successfully.");
+    public static List<ConnectionPool.PoolStats> getPoolStats() {
+        return List.of(writerPool.getStats(), readerPool.getStats());
+    }
+
+    public static void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Database writer did not drain within 5 seconds");
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
 
+        logger.info("Closing database pools - {}", getPoolStats());
+        readerPool.close();
+        writerPool.close();
+    }
+
+    /**
+     * Apply any pending schema migrations. On an up-to-date database this is a
+     * single PRAGMA user_version read.
+     */
+    public static void initialize() {
+        try {
+            int version = write(SchemaMigrator::migrate);
+            logger.info("Database initialized successfully ({} mode, schema v{}).", storageMode, version);
         } catch (SQLException e) {
             logger.error("Database initialization failed", e);
         }
@@ -0,0 +1,485 @@
+package com.mnemos.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Word index over small documents identified by a long key. Words are
+ * case-folded with diacritics removed. Each word's postings are the
+ * document numbers containing it, delta-encoded as varints, with the low
+ * bit marking a match in the title.
+ * <p>
+ * The index has two segments. The base segment is an immutable snapshot
+ * image, read in place from a memory-mapped file or, after compaction, from
+ * the heap. The delta segment holds documents added since then. Replacing or removing a document only tombstones
+ * its number; {@link #write(Path)} and {@link #compacted()} merge both
+ * segments without the tombstoned documents. Not thread-safe.
+ */
+public class InvertedIndex {
+    private static final int MAGIC = 0x4D4E5349; // "MNSI"
+    private static final int VERSION = 1;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * A matching document and how many query words matched its title.
+     */
+    public record Hit(long key, String title, int titleMatches) {
+    }
+
+    // Base segment, or null when the index did not start from a snapshot
+    private final ByteBuffer base;
+    private final int baseDocs;
+    private final int baseTerms;
+    private final int titleOffsetsAt;
+    private final int termOffsetsAt;
+    private final int postingOffsetsAt;
+    private final int titlesAt;
+    private final int termsAt;
+    private final int postingsAt;
+
+    // Every document number ever assigned, base documents first
+    private long[] keys;
+    private int docCount;
+    private final LongHashMap<Integer> docOf = new LongHashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final List<String> deltaTitles = new ArrayList<>();
+    private final TreeMap<String, Postings> deltaTerms = new TreeMap<>();
+
+    private InvertedIndex(ByteBuffer base) {
+        this.base = base;
+        if (base == null) {
+            baseDocs = baseTerms = 0;
+            titleOffsetsAt = termOffsetsAt = postingOffsetsAt = titlesAt = termsAt = postingsAt = 0;
+            keys = new long[64];
+            return;
+        }
+        if (base.getInt(0) != MAGIC || base.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a search index snapshot");
+        }
+        baseDocs = base.getInt(8);
+        baseTerms = base.getInt(12);
+        int keysAt = 16;
+        titleOffsetsAt = keysAt + baseDocs * Long.BYTES;
+        termOffsetsAt = titleOffsetsAt + (baseDocs + 1) * Integer.BYTES;
+        postingOffsetsAt = termOffsetsAt + (baseTerms + 1) * Integer.BYTES;
+        titlesAt = postingOffsetsAt + (baseTerms + 1) * Integer.BYTES;
+        termsAt = titlesAt + base.getInt(termOffsetsAt - Integer.BYTES);
+        postingsAt = termsAt + base.getInt(postingOffsetsAt - Integer.BYTES);
+
+        keys = new long[Math.max(64, baseDocs * 2)];
+        for (int doc = 0; doc < baseDocs; doc++) {
+            keys[doc] = base.getLong(keysAt + doc * Long.BYTES);
+            docOf.put(keys[doc], doc);
+        }
+        docCount = baseDocs;
+    }
+
+    public static InvertedIndex empty() {
+        return new InvertedIndex(null);
+    }
+
+    /**
+     * Map a snapshot written by {@link #write(Path)}. The file stays mapped
+     * for the life of the index.
+     */
+    public static InvertedIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            try {
+                return new InvertedIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt search index snapshot " + path, e);
+            }
+        }
+    }
+
+    /**
+     * The text lower-cased and without diacritics, the form words are indexed in.
+     */
+    public static String fold(String text) {
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Case-folded words of a text, without diacritics, in order of appearance.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.codePointAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+            if (i < folded.length() && Character.isHighSurrogate(folded.charAt(i))) {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /** Live documents. */
+    public int size() {
+        return docOf.size();
+    }
+
+    /** Documents replaced or removed since the snapshot, still taking space until the next write. */
+    public int deletedCount() {
+        return deleted.cardinality();
+    }
+
+    public boolean contains(long key) {
+        return docOf.containsKey(key);
+    }
+
+    /**
+     * Index a document, replacing any earlier version with the same key.
+     */
+    public void put(long key, String title, String body) {
+        remove(key);
+        int doc = docCount++;
+        if (doc == keys.length) {
+            keys = Arrays.copyOf(keys, doc * 2);
+        }
+        keys[doc] = key;
+        docOf.put(key, doc);
+        deltaTitles.add(title == null ? "" : title);
+
+        Map<String, Boolean> terms = new LinkedHashMap<>();
+        for (String term : tokenize(title)) {
+            terms.put(term, true);
+        }
+        for (String term : tokenize(body)) {
+            terms.putIfAbsent(term, false);
+        }
+        terms.forEach((term, inTitle) -> deltaTerms.computeIfAbsent(term, t -> new Postings())
+                .add(doc << 1 | (inTitle ? 1 : 0)));
+    }
+
+    /**
+     * @return false if the key was not indexed
+     */
+    public boolean remove(long key) {
+        Integer doc = docOf.remove(key);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        return true;
+    }
+
+    /**
+     * Documents containing, for every word of the query, a word starting
+     * with it. Ranked by title matches, then most recently indexed first.
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        BitSet matches = null;
+        BitSet[] titleMatches = new BitSet[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            BitSet docs = new BitSet(docCount);
+            titleMatches[i] = new BitSet(docCount);
+            collectPrefix(words.get(i), docs, titleMatches[i]);
+            if (matches == null) {
+                matches = docs;
+            } else {
+                matches.and(docs);
+            }
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+        }
+        matches.andNot(deleted);
+
+        // One bucket per title match count; newest first within each
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int i = 0; i <= words.size(); i++) {
+            buckets.add(new ArrayList<>());
+        }
+        List<Integer> best = buckets.get(words.size());
+        for (int doc = matches.previousSetBit(docCount - 1); doc >= 0 && best.size() < limit;
+                doc = matches.previousSetBit(doc - 1)) {
+            int score = 0;
+            for (BitSet title : titleMatches) {
+                if (title.get(doc)) {
+                    score++;
+                }
+            }
+            buckets.get(score).add(doc);
+        }
+
+        List<Hit> hits = new ArrayList<>(limit);
+        for (int score = words.size(); score >= 0 && hits.size() < limit; score--) {
+            for (int doc : buckets.get(score)) {
+                if (hits.size() == limit) {
+                    break;
+                }
+                hits.add(new Hit(keys[doc], title(doc), score));
+            }
+        }
+        return hits;
+    }
+
+    private void collectPrefix(String prefix, BitSet docs, BitSet titles) {
+        for (int term = lowerBound(prefix); term < baseTerms && baseTerm(term).startsWith(prefix); term++) {
+            int from = postingsAt + base.getInt(postingOffsetsAt + term * Integer.BYTES);
+            int to = postingsAt + base.getInt(postingOffsetsAt + (term + 1) * Integer.BYTES);
+            decode(base, from, to, docs, titles);
+        }
+        for (Postings postings : deltaTerms.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            ByteBuffer buffer = ByteBuffer.wrap(postings.bytes, 0, postings.length);
+            decode(buffer, 0, postings.length, docs, titles);
+        }
+    }
+
+    private static void decode(ByteBuffer buffer, int from, int to, BitSet docs, BitSet titles) {
+        int value = 0;
+        int pos = from;
+        while (pos < to) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(pos++);
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += gap;
+            docs.set(value >>> 1);
+            if ((value & 1) != 0) {
+                titles.set(value >>> 1);
+            }
+        }
+    }
+
+    // First base term not less than the key
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = baseTerms;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (baseTerm(mid).compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String baseTerm(int term) {
+        int from = base.getInt(termOffsetsAt + term * Integer.BYTES);
+        int to = base.getInt(termOffsetsAt + (term + 1) * Integer.BYTES);
+        return utf8(termsAt + from, to - from);
+    }
+
+    private String title(int doc) {
+        if (doc >= baseDocs) {
+            return deltaTitles.get(doc - baseDocs);
+        }
+        int from = base.getInt(titleOffsetsAt + doc * Integer.BYTES);
+        int to = base.getInt(titleOffsetsAt + (doc + 1) * Integer.BYTES);
+        return utf8(titlesAt + from, to - from);
+    }
+
+    private String utf8(int at, int length) {
+        byte[] bytes = new byte[length];
+        base.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Merge both segments into a snapshot at the given path, leaving out
+     * replaced and removed documents. Written to a temporary file first, so
+     * a failed write never leaves a truncated snapshot behind.
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer snapshot = merge();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The same live documents with tombstones dropped, as a new index whose
+     * base segment is on the heap.
+     */
+    public InvertedIndex compacted() {
+        return new InvertedIndex(merge());
+    }
+
+    private ByteBuffer merge() {
+        // Live documents keep their relative order under new numbers
+        int[] renumbered = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            renumbered[doc] = deleted.get(doc) ? -1 : live++;
+        }
+
+        long[] liveKeys = new long[live];
+        int[] titleOffsets = new int[live + 1];
+        Bytes titles = new Bytes();
+        for (int doc = 0; doc < docCount; doc++) {
+            if (renumbered[doc] >= 0) {
+                liveKeys[renumbered[doc]] = keys[doc];
+                titles.append(title(doc).getBytes(StandardCharsets.UTF_8));
+                titleOffsets[renumbered[doc] + 1] = titles.length;
+            }
+        }
+
+        // Both term lists are sorted, so merge them in one pass
+        Bytes termOffsets = new Bytes();
+        Bytes postingOffsets = new Bytes();
+        termOffsets.appendInt(0);
+        postingOffsets.appendInt(0);
+        int termCount = 0;
+        Bytes terms = new Bytes();
+        Bytes postings = new Bytes();
+        Postings merged = new Postings();
+        int baseTerm = 0;
+        var delta = deltaTerms.entrySet().iterator();
+        Map.Entry<String, Postings> deltaEntry = delta.hasNext() ? delta.next() : null;
+        while (baseTerm < baseTerms || deltaEntry != null) {
+            String baseKey = baseTerm < baseTerms ? baseTerm(baseTerm) : null;
+            int order = baseKey == null ? 1 : deltaEntry == null ? -1 : baseKey.compareTo(deltaEntry.getKey());
+            String term = order <= 0 ? baseKey : deltaEntry.getKey();
+
+            merged.clear();
+            if (order <= 0) {
+                int from = postingsAt + base.getInt(postingOffsetsAt + baseTerm * Integer.BYTES);
+                int to = postingsAt + base.getInt(postingOffsetsAt + (baseTerm + 1) * Integer.BYTES);
+                remap(base, from, to, renumbered, merged);
+                baseTerm++;
+            }
+            if (order >= 0) {
+                Postings added = deltaEntry.getValue();
+                remap(ByteBuffer.wrap(added.bytes, 0, added.length), 0, added.length, renumbered, merged);
+                deltaEntry = delta.hasNext() ? delta.next() : null;
+            }
+            if (merged.length > 0) {
+                terms.append(term.getBytes(StandardCharsets.UTF_8));
+                postings.append(merged.bytes, merged.length);
+                termOffsets.appendInt(terms.length);
+                postingOffsets.appendInt(postings.length);
+                termCount++;
+            }
+        }
+
+        ByteBuffer snapshot = ByteBuffer.allocate(16 + live * Long.BYTES + titleOffsets.length * Integer.BYTES
+                + termOffsets.length + postingOffsets.length + titles.length + terms.length + postings.length);
+        snapshot.putInt(MAGIC).putInt(VERSION).putInt(live).putInt(termCount);
+        for (long key : liveKeys) {
+            snapshot.putLong(key);
+        }
+        for (int offset : titleOffsets) {
+            snapshot.putInt(offset);
+        }
+        snapshot.put(termOffsets.bytes, 0, termOffsets.length);
+        snapshot.put(postingOffsets.bytes, 0, postingOffsets.length);
+        snapshot.put(titles.bytes, 0, titles.length);
+        snapshot.put(terms.bytes, 0, terms.length);
+        snapshot.put(postings.bytes, 0, postings.length);
+        return snapshot.flip();
+    }
+
+    private static void remap(ByteBuffer buffer, int from, int to, int[] renumbered, Postings into) {
+        int value = 0;
+        int pos = from;
+        while (pos < to) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(pos++);
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += gap;
+            int doc = renumbered[value >>> 1];
+            if (doc >= 0) {
+                into.add(doc << 1 | (value & 1));
+            }
+        }
+    }
+
+    private static class Bytes {
+        byte[] bytes = new byte[256];
+        int length;
+
+        void append(byte[] data) {
+            append(data, data.length);
+        }
+
+        void appendInt(int value) {
+            append(new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value });
+        }
+
+        void append(byte[] data, int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(data, 0, bytes, length, count);
+            length += count;
+        }
+    }
+
+    /**
+     * Ascending values stored as varint gaps.
+     */
+    private static class Postings {
+        byte[] bytes = new byte[8];
+        int length;
+        int last;
+
+        void add(int value) {
+            int gap = value - last;
+            last = value;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((gap & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            bytes[length++] = (byte) gap;
+        }
+
+        void clear() {
+            length = 0;
+            last = 0;
+        }
+    }
+}
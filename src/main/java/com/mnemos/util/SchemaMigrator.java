@@ -0,0 +1,443 @@
+package com.mnemos.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Versioned schema migrations for mnemos.db.
+ * The applied version is kept in {@code PRAGMA user_version}. Each migration
+ * runs in its own transaction together with the version bump, so a failed
+ * step leaves the schema at the previous version instead of half-applied.
+ * New migrations are appended to {@link #MIGRATIONS}; never edit an applied one.
+ */
+public final class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private record Migration(int version, String description, SqlAction step) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Baseline schema", SchemaMigrator::baseline),
+            new Migration(2, "Indexes for hot query predicates", SchemaMigrator::hotQueryIndexes),
+            new Migration(3, "Indexes for the priority-ordered task list", SchemaMigrator::taskListIndexes),
+            new Migration(4, "Indexed epoch reminder times", SchemaMigrator::reminderEpochs),
+            new Migration(5, "Occurrence calendar for recurring tasks", SchemaMigrator::taskOccurrences),
+            new Migration(6, "Revision log for notes", SchemaMigrator::noteRevisions),
+            new Migration(7, "Full-text search index", SchemaMigrator::searchIndex),
+            new Migration(8, "Current title, time and preview on the notes row", SchemaMigrator::noteRowsCurrent),
+            new Migration(9, "Note search text written at revision snapshots", SchemaMigrator::noteSearchOnSave));
+
+    private SchemaMigrator() {
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    /**
+     * Bring the schema up to date. Must run on the writer connection.
+     *
+     * @return the schema version after migrating
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        int current = readVersion(conn);
+        if (current >= latestVersion()) {
+            return current;
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            apply(conn, migration);
+            current = migration.version();
+        }
+        return current;
+    }
+
+    private static int readVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            migration.step().run(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA user_version = " + migration.version());
+            }
+            conn.commit();
+            logger.info("Applied schema migration {}: {}", migration.version(), migration.description());
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void addColumnIfMissing(Connection conn, String table, String column, String definition)
+            throws SQLException {
+        if (!hasColumn(conn, table, column)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            }
+            logger.info("Added {} column to {} table", column, table);
+        }
+    }
+
+    // Migrations
+
+    /**
+     * Schema as of the last unversioned release. Databases created before
+     * versioning may lack the later task columns, so those are added when missing.
+     */
+    private static void baseline(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS notes (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        title TEXT,
+                        content TEXT,
+                        created_at INTEGER,
+                        updated_at INTEGER
+                    )
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS tasks (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        title TEXT,
+                        priority TEXT,
+                        due_date TEXT,
+                        status TEXT,
+                        completed_at INTEGER,
+                        pomodoro_count INTEGER DEFAULT 0,
+                        recurrence_type TEXT,
+                        recurrence_interval INTEGER,
+                        recurrence_end_date TEXT,
+                        reminder_date TEXT,
+                        recurrence_unit TEXT,
+                        recurrence_days TEXT,
+                        recurrence_max_occurrences INTEGER DEFAULT 0
+                    )
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS files (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        name TEXT,
+                        path TEXT,
+                        type TEXT,
+                        added_at INTEGER
+                    )
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS streaks (
+                        id INTEGER PRIMARY KEY,
+                        current_streak INTEGER DEFAULT 0,
+                        last_completion_date TEXT,
+                        longest_streak INTEGER DEFAULT 0
+                    )
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS app_settings (
+                        key TEXT PRIMARY KEY,
+                        value TEXT
+                    )
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS links (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        source_type TEXT NOT NULL,
+                        source_id INTEGER NOT NULL,
+                        target_type TEXT NOT NULL,
+                        target_id INTEGER NOT NULL,
+                        created_at INTEGER,
+                        UNIQUE(source_type, source_id, target_type, target_id)
+                    )
+                    """);
+
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS task_dependencies (
+                        predecessor_id INTEGER NOT NULL,
+                        successor_id INTEGER NOT NULL,
+                        PRIMARY KEY (predecessor_id, successor_id),
+                        FOREIGN KEY(predecessor_id) REFERENCES tasks(id) ON DELETE CASCADE,
+                        FOREIGN KEY(successor_id) REFERENCES tasks(id) ON DELETE CASCADE
+                    )
+                    """);
+
+            // Initialize streak record if not exists
+            stmt.execute(
+                    "INSERT OR IGNORE INTO streaks (id, current_streak, last_completion_date, longest_streak) VALUES (1, 0, NULL, 0)");
+        }
+
+        // Columns added to tasks by earlier unversioned releases
+        addColumnIfMissing(conn, "tasks", "completed_at", "INTEGER");
+        addColumnIfMissing(conn, "tasks", "pomodoro_count", "INTEGER DEFAULT 0");
+        addColumnIfMissing(conn, "tasks", "recurrence_type", "TEXT");
+        addColumnIfMissing(conn, "tasks", "recurrence_interval", "INTEGER");
+        addColumnIfMissing(conn, "tasks", "recurrence_end_date", "TEXT");
+        addColumnIfMissing(conn, "tasks", "reminder_date", "TEXT");
+        addColumnIfMissing(conn, "tasks", "recurrence_unit", "TEXT");
+        addColumnIfMissing(conn, "tasks", "recurrence_days", "TEXT");
+        addColumnIfMissing(conn, "tasks", "recurrence_max_occurrences", "INTEGER DEFAULT 0");
+    }
+
+    /**
+     * One index per hot predicate: task status filters and the completed-task
+     * purge, due-date ordering, note and file list ordering, dependency lookups
+     * by successor and link lookups from the target side. The source side of
+     * links is already covered by its UNIQUE constraint.
+     */
+    private static void hotQueryIndexes(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_tasks_status_completed_at ON tasks(status, completed_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_tasks_due_date ON tasks(due_date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notes_updated_at ON notes(updated_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_files_added_at ON files(added_at)");
+            stmt.execute(
+                    "CREATE INDEX IF NOT EXISTS idx_task_dependencies_successor ON task_dependencies(successor_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_links_target ON links(target_type, target_id)");
+        }
+    }
+
+    /**
+     * Task list ordering is priority rank then due date, with or without a
+     * status filter. The rank expression must stay identical to
+     * {@code TaskRepository.PRIORITY_RANK}.
+     */
+    private static void taskListIndexes(Connection conn) throws SQLException {
+        String rank = "CASE priority WHEN 'HIGH' THEN 0 WHEN 'MEDIUM' THEN 1 ELSE 2 END";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_tasks_status_priority_due ON tasks(status, "
+                    + rank + ", due_date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_tasks_priority_due ON tasks(" + rank + ", due_date)");
+        }
+    }
+
+    /**
+     * reminder_at holds reminder_date, a local ISO timestamp, as epoch
+     * millis so upcoming reminders are an index range scan. The conversion
+     * must stay identical to {@code TaskRepository.REMINDER_AT}.
+     */
+    private static void reminderEpochs(Connection conn) throws SQLException {
+        addColumnIfMissing(conn, "tasks", "reminder_at", "INTEGER");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE tasks SET reminder_at = CAST(strftime('%s', reminder_date, 'utc') AS INTEGER) * 1000"
+                    + " WHERE reminder_date IS NOT NULL");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_tasks_reminder_at ON tasks(reminder_at)"
+                    + " WHERE reminder_at IS NOT NULL");
+        }
+    }
+
+    /**
+     * Projected due dates of recurring tasks, filled lazily by
+     * {@code RecurrenceService}. Keyed by task first for per-task rewrites,
+     * with a date index for calendar ranges.
+     */
+    private static void taskOccurrences(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS task_occurrences (
+                        task_id INTEGER NOT NULL,
+                        occurs_on TEXT NOT NULL,
+                        PRIMARY KEY (task_id, occurs_on),
+                        FOREIGN KEY(task_id) REFERENCES tasks(id) ON DELETE CASCADE
+                    ) WITHOUT ROWID
+                    """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_task_occurrences_date ON task_occurrences(occurs_on)");
+        }
+    }
+
+    /**
+     * Note history as full snapshots and text deltas, see
+     * {@code NoteRepository}. notes.revision is the latest snapshot, whose
+     * text notes.content holds. Existing notes start as snapshot 0.
+     */
+    private static void noteRevisions(Connection conn) throws SQLException {
+        addColumnIfMissing(conn, "notes", "revision", "INTEGER NOT NULL DEFAULT 0");
+        try (Statement stmt = conn.createStatement()) {
+            // body last, so reading the other columns never touches its overflow pages
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS note_revisions (
+                        note_id INTEGER NOT NULL,
+                        revision INTEGER NOT NULL,
+                        snapshot INTEGER NOT NULL,
+                        title TEXT,
+                        created_at INTEGER NOT NULL,
+                        body TEXT NOT NULL,
+                        PRIMARY KEY (note_id, revision),
+                        FOREIGN KEY(note_id) REFERENCES notes(id) ON DELETE CASCADE
+                    )
+                    """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_note_revisions_snapshot ON note_revisions(note_id, revision)"
+                    + " WHERE snapshot = 1");
+            stmt.execute("""
+                    INSERT OR IGNORE INTO note_revisions(note_id, revision, snapshot, title, created_at, body)
+                    SELECT id, 0, 1, title, COALESCE(updated_at, created_at, 0), COALESCE(content, '') FROM notes
+                    """);
+        }
+    }
+
+    /**
+     * One FTS5 table over task titles, notes and file names and paths, kept
+     * in sync by triggers. The rowid packs the item id with its kind in the
+     * low two bits, see {@code SearchRepository}. Migration 9 drops the
+     * notes update trigger; {@code NoteRepository} reindexes a note itself
+     * at each revision snapshot.
+     */
+    private static void searchIndex(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE VIRTUAL TABLE IF NOT EXISTS search_index USING fts5(
+                        title, body,
+                        tokenize = 'unicode61 remove_diacritics 2',
+                        prefix = '2 3'
+                    )
+                    """);
+            searchTriggers(stmt, "tasks", 0, "title", null);
+            searchTriggers(stmt, "notes", 1, "title", "content");
+            searchTriggers(stmt, "files", 2, "name", "path");
+            stmt.execute("""
+                    INSERT INTO search_index(rowid, title, body)
+                    SELECT id << 2 | 0, title, NULL FROM tasks
+                    UNION ALL SELECT id << 2 | 1, title, content FROM notes
+                    UNION ALL SELECT id << 2 | 2, name, path FROM files
+                    """);
+        }
+    }
+
+    /**
+     * Insert, update and delete triggers mirroring one table into search_index.
+     *
+     * @param body indexed body column, or null for none
+     */
+    private static void searchTriggers(Statement stmt, String table, int kind, String title, String body)
+            throws SQLException {
+        String watched = body == null ? title : title + ", " + body;
+        String newBody = body == null ? "NULL" : "new." + body;
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_search_insert AFTER INSERT ON " + table
+                + " BEGIN INSERT INTO search_index(rowid, title, body)"
+                + " VALUES (new.id << 2 | " + kind + ", new." + title + ", " + newBody + "); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_search_update AFTER UPDATE OF " + watched
+                + " ON " + table + " BEGIN UPDATE search_index SET title = new." + title + ", body = " + newBody
+                + " WHERE rowid = old.id << 2 | " + kind + "; END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_search_delete AFTER DELETE ON " + table
+                + " BEGIN DELETE FROM search_index WHERE rowid = old.id << 2 | " + kind + "; END");
+    }
+
+    /**
+     * From here on every note save writes the row's title, updated_at and
+     * preview, while content still changes only at snapshots. Notes with
+     * deltas after their snapshot are folded first, as
+     * {@code NoteRepository.compact} does, so every row starts out current.
+     */
+    private static void noteRowsCurrent(Connection conn) throws SQLException {
+        addColumnIfMissing(conn, "notes", "preview", "TEXT");
+        record Fold(long noteId, int revision, String title, long createdAt, String content) {
+        }
+        List<Fold> folds = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("""
+                        SELECT n.id, n.content, r.revision, r.snapshot, r.title, r.created_at, r.body
+                        FROM notes n JOIN note_revisions r ON r.note_id = n.id AND r.revision > n.revision
+                        ORDER BY n.id, r.revision
+                        """)) {
+            Fold fold = null;
+            while (rs.next()) {
+                long noteId = rs.getLong("id");
+                if (fold == null || fold.noteId() != noteId) {
+                    if (fold != null && fold.content() != null) {
+                        folds.add(fold);
+                    }
+                    String content = rs.getString("content");
+                    fold = new Fold(noteId, 0, null, 0, content == null ? "" : content);
+                }
+                if (fold.content() == null) {
+                    continue;
+                }
+                String content;
+                try {
+                    content = rs.getBoolean("snapshot")
+                            ? rs.getString("body")
+                            : TextDelta.apply(fold.content(), rs.getString("body"));
+                } catch (IllegalArgumentException e) {
+                    // Left as it is; reading the note reports the broken log
+                    logger.warn("Corrupt revision log for note {}, not folded", noteId, e);
+                    content = null;
+                }
+                fold = new Fold(noteId, rs.getInt("revision"), rs.getString("title"), rs.getLong("created_at"),
+                        content);
+            }
+            if (fold != null && fold.content() != null) {
+                folds.add(fold);
+            }
+        }
+
+        try (PreparedStatement foldRevision = conn.prepareStatement(
+                "UPDATE note_revisions SET snapshot = 1, body = ? WHERE note_id = ? AND revision = ?");
+                PreparedStatement foldRow = conn.prepareStatement(
+                        "UPDATE notes SET title = ?, content = ?, updated_at = ?, revision = ? WHERE id = ?")) {
+            for (Fold fold : folds) {
+                foldRevision.setString(1, fold.content());
+                foldRevision.setLong(2, fold.noteId());
+                foldRevision.setInt(3, fold.revision());
+                foldRevision.executeUpdate();
+                foldRow.setString(1, fold.title());
+                foldRow.setString(2, fold.content());
+                foldRow.setLong(3, fold.createdAt());
+                foldRow.setInt(4, fold.revision());
+                foldRow.setLong(5, fold.noteId());
+                foldRow.executeUpdate();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    UPDATE notes SET preview = replace(replace(
+                        CASE WHEN length(content) > 80 THEN substr(content, 1, 80) || '...' ELSE content END,
+                        char(13), ''), char(10), ' ')
+                    """);
+        }
+    }
+
+    /**
+     * notes.content lags behind between snapshots while the title does not,
+     * so the update trigger would index a stale body on every title change.
+     * {@code NoteRepository} writes the note's search text along with each
+     * snapshot instead, so FTS is rewritten per snapshot rather than per
+     * autosave; inserts and deletes stay with their triggers.
+     */
+    private static void noteSearchOnSave(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TRIGGER IF EXISTS notes_search_update");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.mnemos.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Unit of database work without a result.
+ */
+@FunctionalInterface
+public interface SqlAction {
+    void run(Connection conn) throws SQLException;
+}
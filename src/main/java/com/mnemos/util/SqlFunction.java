@@ -0,0 +1,12 @@
+package com.mnemos.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Unit of database work that produces a result.
+ */
+@FunctionalInterface
+public interface SqlFunction<T> {
+    T apply(Connection conn) throws SQLException;
+}
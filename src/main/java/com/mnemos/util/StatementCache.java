@@ -0,0 +1,221 @@
+package com.mnemos.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL.
+ * A cached statement is handed out to one caller at a time; closing the
+ * handed-out statement resets it for the next caller instead of finalizing it.
+ * Not thread-safe: a connection is only ever used by its current borrower.
+ */
+class StatementCache {
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection physical;
+    private final Counters counters;
+    private final Map<Key, Entry> entries;
+
+    StatementCache(Connection physical, int capacity, Counters counters) {
+        this.physical = physical;
+        this.counters = counters;
+        this.entries = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                Entry entry = eldest.getValue();
+                entry.evicted = true;
+                if (!entry.inUse) {
+                    closeQuietly(entry.statement);
+                }
+                counters.evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Return a statement for {@code sql}, reusing the compiled one when it is
+     * cached and not already handed out.
+     */
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys, List<Lease> leases)
+            throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+
+        if (entry != null && !entry.inUse && !entry.statement.isClosed()) {
+            counters.hits.increment();
+        } else {
+            counters.misses.increment();
+            PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+            if (entry != null && entry.inUse) {
+                // Same SQL is already open on this connection; hand out an uncached copy
+                entry = new Entry(statement);
+                entry.evicted = true;
+            } else {
+                entry = new Entry(statement);
+                entries.put(key, entry);
+            }
+        }
+
+        entry.inUse = true;
+        Lease lease = new Lease(entry);
+        leases.add(lease);
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new LeaseHandler(owner, lease));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void closeAll() {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            closeQuietly(it.next().statement);
+            it.remove();
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing cached statement", e);
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters shared by all caches of a pool.
+     */
+    static class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private static class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * One hand-out of a cached statement. Releasing it closes any result sets
+     * the caller left open, so no read transaction outlives the borrow.
+     */
+    static class Lease {
+        private final Entry entry;
+        private final List<ResultSet> resultSets = new ArrayList<>();
+        private boolean released;
+
+        Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+
+            for (ResultSet rs : resultSets) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    logger.debug("Error closing result set", e);
+                }
+            }
+            resultSets.clear();
+
+            entry.inUse = false;
+            if (entry.evicted) {
+                closeQuietly(entry.statement);
+                return;
+            }
+            try {
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+            } catch (SQLException e) {
+                // Statement is unusable; the next prepare replaces it
+                closeQuietly(entry.statement);
+            }
+        }
+    }
+
+    private static class LeaseHandler implements InvocationHandler {
+        private final Connection owner;
+        private final Lease lease;
+
+        LeaseHandler(Connection owner, Lease lease) {
+            this.owner = owner;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    lease.release();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return lease.released;
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached " + lease.entry.statement;
+                }
+                default -> {
+                    if (lease.released) {
+                        throw new SQLException("Statement is closed");
+                    }
+                }
+            }
+
+            Object result;
+            try {
+                result = method.invoke(lease.entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet rs) {
+                lease.resultSets.add(rs);
+            }
+            return result;
+        }
+    }
+}
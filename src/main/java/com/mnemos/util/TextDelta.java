@@ -0,0 +1,99 @@
+package com.mnemos.util;
+
+/**
+ * Compact edit scripts between two strings. A delta is a run of ops applied
+ * left to right against the old text: {@code =n} keeps n chars, {@code -n}
+ * drops n chars and {@code +n:text} inserts the n chars that follow. Text
+ * after the last op is kept, so a typical autosave, one edited region, is
+ * {@code =keep-removed+added:text}.
+ */
+public final class TextDelta {
+
+    private TextDelta() {
+    }
+
+    /**
+     * Delta that turns {@code from} into {@code to}: the common prefix and
+     * suffix are kept and the middle is replaced. Never splits a surrogate
+     * pair, so the inserted text survives the trip through UTF-8.
+     */
+    public static String diff(String from, String to) {
+        int max = Math.min(from.length(), to.length());
+        int prefix = 0;
+        while (prefix < max && from.charAt(prefix) == to.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix > 0 && Character.isHighSurrogate(from.charAt(prefix - 1))) {
+            prefix--;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(from.charAt(from.length() - suffix))) {
+            suffix--;
+        }
+
+        int removed = from.length() - prefix - suffix;
+        String inserted = to.substring(prefix, to.length() - suffix);
+        StringBuilder delta = new StringBuilder(inserted.length() + 24);
+        if (prefix > 0) {
+            delta.append('=').append(prefix);
+        }
+        if (removed > 0) {
+            delta.append('-').append(removed);
+        }
+        if (!inserted.isEmpty()) {
+            delta.append('+').append(inserted.length()).append(':').append(inserted);
+        }
+        return delta.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the delta is malformed or does not fit the text
+     */
+    public static String apply(String from, String delta) {
+        StringBuilder to = new StringBuilder(from.length() + delta.length());
+        int source = 0;
+        int pos = 0;
+        while (pos < delta.length()) {
+            char op = delta.charAt(pos++);
+            int start = pos;
+            while (pos < delta.length() && Character.isDigit(delta.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new IllegalArgumentException("Missing length at " + start);
+            }
+            int length = Integer.parseInt(delta, start, pos, 10);
+            switch (op) {
+                case '=' -> {
+                    checkRange(from, source, length);
+                    to.append(from, source, source + length);
+                    source += length;
+                }
+                case '-' -> {
+                    checkRange(from, source, length);
+                    source += length;
+                }
+                case '+' -> {
+                    if (pos >= delta.length() || delta.charAt(pos) != ':' || pos + 1 + length > delta.length()) {
+                        throw new IllegalArgumentException("Bad insert at " + start);
+                    }
+                    pos++;
+                    to.append(delta, pos, pos + length);
+                    pos += length;
+                }
+                default -> throw new IllegalArgumentException("Unknown op '" + op + "' at " + (start - 1));
+            }
+        }
+        return to.append(from, source, from.length()).toString();
+    }
+
+    private static void checkRange(String text, int offset, int length) {
+        if (offset + length > text.length()) {
+            throw new IllegalArgumentException("Delta runs past the end of the text");
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.mnemos.util;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timing wheel of (id, deadline) pairs kept in primitive arrays.
+ * Each slot covers one tick; an entry sits in the slot of its deadline tick
+ * and stays there for further revolutions until it is due, so schedule and
+ * cancel are O(1) and a tick only walks one slot. Entries form doubly
+ * linked lists through index arrays with a free list, and the id lookup
+ * chains them through hash buckets the same way, so nothing is allocated
+ * per entry. Not thread-safe.
+ */
+public class TimingWheel {
+    private static final int NONE = -1;
+
+    private final long tickMillis;
+    private final int mask;
+    private final int[] heads;
+    // id -> entry index: bucket heads by id hash, chained through bucketNext
+    private int[] buckets;
+    private int size;
+
+    private long[] ids;
+    private long[] deadlines;
+    private int[] next;
+    private int[] prev;
+    private int[] slotOf;
+    private int[] bucketNext;
+    private int free = NONE;
+    private int used;
+    private long currentTick;
+
+    /**
+     * @param wheelSize slot count, rounded up to a power of two
+     * @param startMillis time of the first tick
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        int slots = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = slots - 1;
+        this.heads = new int[slots];
+        Arrays.fill(heads, NONE);
+        this.currentTick = startMillis / tickMillis;
+        this.buckets = new int[64];
+        Arrays.fill(buckets, NONE);
+        allocate(64);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long id) {
+        return find(id) != NONE;
+    }
+
+    /**
+     * Schedule an id, replacing any earlier deadline for it. Deadlines that
+     * have already passed fire on the next tick.
+     */
+    public void schedule(long id, long deadline) {
+        cancel(id);
+        int entry = allocateEntry();
+        ids[entry] = id;
+        deadlines[entry] = deadline;
+
+        // First tick at or after the deadline, so the entry is due when its slot is visited
+        long tick = Math.max(Math.floorDiv(deadline + tickMillis - 1, tickMillis), currentTick + 1);
+        int slot = (int) (tick & mask);
+        slotOf[entry] = slot;
+        prev[entry] = NONE;
+        next[entry] = heads[slot];
+        if (heads[slot] != NONE) {
+            prev[heads[slot]] = entry;
+        }
+        heads[slot] = entry;
+        addToBucket(entry);
+    }
+
+    /**
+     * @return false if the id was not scheduled
+     */
+    public boolean cancel(long id) {
+        int entry = find(id);
+        if (entry == NONE) {
+            return false;
+        }
+        removeFromBucket(entry);
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Advance the wheel to the given time and remove every entry now due.
+     * When more than a revolution has passed, each slot is visited once.
+     *
+     * @return the due ids, in no particular order
+     */
+    public long[] advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        if (targetTick <= currentTick) {
+            return new long[0];
+        }
+        long firstTick = Math.max(currentTick + 1, targetTick - mask);
+        currentTick = targetTick;
+
+        long[] due = new long[8];
+        int count = 0;
+        for (long tick = firstTick; tick <= targetTick; tick++) {
+            int entry = heads[(int) (tick & mask)];
+            while (entry != NONE) {
+                int following = next[entry];
+                if (deadlines[entry] <= nowMillis) {
+                    if (count == due.length) {
+                        due = Arrays.copyOf(due, count * 2);
+                    }
+                    due[count++] = ids[entry];
+                    removeFromBucket(entry);
+                    unlink(entry);
+                }
+                entry = following;
+            }
+        }
+        return Arrays.copyOf(due, count);
+    }
+
+    private int bucketOf(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (buckets.length - 1);
+    }
+
+    private int find(long id) {
+        for (int entry = buckets[bucketOf(id)]; entry != NONE; entry = bucketNext[entry]) {
+            if (ids[entry] == id) {
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private void addToBucket(int entry) {
+        if (size == buckets.length) {
+            rehash(buckets.length * 2);
+        }
+        int bucket = bucketOf(ids[entry]);
+        bucketNext[entry] = buckets[bucket];
+        buckets[bucket] = entry;
+        size++;
+    }
+
+    private void removeFromBucket(int entry) {
+        int bucket = bucketOf(ids[entry]);
+        if (buckets[bucket] == entry) {
+            buckets[bucket] = bucketNext[entry];
+        } else {
+            int before = buckets[bucket];
+            while (bucketNext[before] != entry) {
+                before = bucketNext[before];
+            }
+            bucketNext[before] = bucketNext[entry];
+        }
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = buckets;
+        buckets = new int[capacity];
+        Arrays.fill(buckets, NONE);
+        for (int head : old) {
+            for (int entry = head; entry != NONE; ) {
+                int following = bucketNext[entry];
+                int bucket = bucketOf(ids[entry]);
+                bucketNext[entry] = buckets[bucket];
+                buckets[bucket] = entry;
+                entry = following;
+            }
+        }
+    }
+
+    private void unlink(int entry) {
+        if (prev[entry] != NONE) {
+            next[prev[entry]] = next[entry];
+        } else {
+            heads[slotOf[entry]] = next[entry];
+        }
+        if (next[entry] != NONE) {
+            prev[next[entry]] = prev[entry];
+        }
+        next[entry] = free;
+        free = entry;
+    }
+
+    private int allocateEntry() {
+        if (free != NONE) {
+            int entry = free;
+            free = next[entry];
+            return entry;
+        }
+        if (used == ids.length) {
+            allocate(used * 2);
+        }
+        return used++;
+    }
+
+    private void allocate(int capacity) {
+        ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+        deadlines = deadlines == null ? new long[capacity] : Arrays.copyOf(deadlines, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+        slotOf = slotOf == null ? new int[capacity] : Arrays.copyOf(slotOf, capacity);
+        bucketNext = bucketNext == null ? new int[capacity] : Arrays.copyOf(bucketNext, capacity);
+    }
+}
@@ -0,0 +1,82 @@
+package com.mnemos.command;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandMatcherTest {
+    private static final Command NOTHING = () -> {
+    };
+
+    private final CommandMatcher matcher = new CommandMatcher(List.of(
+            new CommandItem("New Note", "Create a new note", "Actions", "", NOTHING),
+            new CommandItem("New Task", "Create a new task", "Actions", "", NOTHING),
+            new CommandItem("Add File", "Add a file reference", "Actions", "", NOTHING),
+            new CommandItem("Go to Notes", "Navigate to Notes view", "Navigation", "", NOTHING),
+            new CommandItem("Go to Tasks", "Navigate to Tasks view", "Navigation", "", NOTHING),
+            new CommandItem("Go to Files", "Navigate to Files view", "Navigation", "", NOTHING)));
+
+    private List<String> top(String query, int limit) {
+        return matcher.top(query, limit).stream().map(CommandItem::getName).toList();
+    }
+
+    private static int score(String query, String text) {
+        boolean[] starts = new boolean[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            starts[i] = text.charAt(i) != ' ' && (i == 0 || text.charAt(i - 1) == ' ');
+        }
+        return CommandMatcher.fuzzyScore(query, text, starts);
+    }
+
+    @Test
+    void initialsFindTheCommand() {
+        assertEquals("Go to Notes", top("gtn", 3).get(0));
+        assertEquals("Go to Files", top("gtf", 3).get(0));
+        assertEquals("New Note", top("nn", 3).get(0));
+        assertEquals("New Task", top("nt", 3).get(0));
+    }
+
+    @Test
+    void wholeWordBeatsScatteredLetters() {
+        assertEquals("Go to Notes", top("notes", 3).get(0));
+        assertEquals("Add File", top("add", 3).get(0));
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        // "file" is in two names and, as a substring, in their descriptions
+        assertEquals(List.of("Add File", "Go to Files"), top("file", 2));
+        // Only descriptions say "view"
+        assertEquals(List.of("Go to Notes", "Go to Tasks", "Go to Files"), top("view", 6));
+        assertEquals(List.of("Go to Notes", "Go to Tasks", "Go to Files"), top("navigation", 6));
+    }
+
+    @Test
+    void tiesKeepTheOriginalOrder() {
+        assertEquals(List.of("Go to Notes", "Go to Tasks", "Go to Files"), top("go to", 3));
+        assertEquals(List.of("Go to Notes", "Go to Tasks"), top("go to", 2));
+    }
+
+    @Test
+    void blankQueryKeepsOrderUpToLimit() {
+        assertEquals(List.of("New Note", "New Task"), top("", 2));
+        assertEquals(6, top("  ", 10).size());
+        assertEquals(List.of(), top("xyz", 5));
+        assertEquals(List.of(), top("gtn", 0));
+    }
+
+    @Test
+    void fuzzyScorePrefersWordStartsAndRuns() {
+        assertEquals(Integer.MIN_VALUE, score("xyz", "go to notes"));
+        assertEquals(Integer.MIN_VALUE, score("notes!", "notes"));
+        assertEquals(0, score("", "anything"));
+
+        assertTrue(score("ab", "abc") > score("ab", "axb"));
+        assertTrue(score("gn", "go notes") > score("gn", "going"));
+        // The best alignment, not the first: both word starts rather than "lot"
+        assertTrue(score("ot", "lot of tea") > score("ot", "lot"));
+    }
+}
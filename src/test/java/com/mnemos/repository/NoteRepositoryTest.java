@@ -0,0 +1,150 @@
+package com.mnemos.repository;
+
+import com.mnemos.model.Link.ItemType;
+import com.mnemos.model.Note;
+import com.mnemos.model.NoteSummary;
+import com.mnemos.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteRepositoryTest {
+    private final NoteRepository repository = new NoteRepository();
+    // The test database outlives a run, so every note gets a title of its own
+    private final String tag = UUID.randomUUID().toString();
+    private final List<Long> created = new ArrayList<>();
+
+    @BeforeAll
+    static void migrate() {
+        DatabaseManager.initialize();
+    }
+
+    @AfterEach
+    void deleteNotes() {
+        repository.deleteAllById(created);
+    }
+
+    private Note create(String content) {
+        Note note = repository.save(new Note(tag, content));
+        assertNotNull(note.getId());
+        created.add(note.getId());
+        return note;
+    }
+
+    private String storedContent(long id) throws SQLException {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement("SELECT content FROM notes WHERE id = ?")) {
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getString(1);
+            }
+        }
+    }
+
+    @Test
+    void everyRevisionRebuildsAcrossSnapshots() {
+        long id = create("line 0\n").getId();
+        List<String> contents = new ArrayList<>(List.of("line 0\n"));
+        String content = "line 0\n";
+        for (int i = 1; i <= 70; i++) {
+            // Mix appends with edits in the middle
+            content = i % 3 == 0 ? content.replaceFirst("line", "LINE " + i) : content + "line " + i + "\n";
+            contents.add(content);
+            assertNotNull(repository.update(id, tag, content));
+            assertEquals(content, repository.findById(id).orElseThrow().getContent(), "revision " + i);
+        }
+
+        for (int revision = 0; revision < contents.size(); revision++) {
+            assertEquals(contents.get(revision), repository.findContentAt(id, revision).orElseThrow(),
+                    "revision " + revision);
+        }
+        List<NoteRepository.Revision> revisions = repository.findRevisions(id);
+        assertEquals(71, revisions.size());
+        assertEquals(70, revisions.get(0).revision());
+        for (NoteRepository.Revision revision : revisions) {
+            assertEquals(revision.revision() % 32 == 0, revision.snapshot(), "revision " + revision.revision());
+        }
+    }
+
+    @Test
+    void deltaSaveKeepsListColumnsCurrentWithoutRewritingContent() throws SQLException {
+        long id = create("first draft").getId();
+        String renamed = tag + " renamed";
+        assertNotNull(repository.update(id, renamed, "second draft\nwith a new line"));
+
+        assertEquals("first draft", storedContent(id));
+        List<NoteSummary> summaries = repository.findSummariesByTitleContaining(tag, null, 10);
+        assertEquals(1, summaries.size());
+        NoteSummary summary = summaries.get(0);
+        assertEquals(renamed, summary.getTitle());
+        assertEquals("second draft with a new line", summary.getPreview());
+
+        Note saved = repository.findById(id).orElseThrow();
+        assertEquals(renamed, saved.getTitle());
+        assertEquals(saved.getUpdatedAt(), summary.getUpdatedAt());
+        assertEquals(id, repository.findSummaryPage(null, 1).get(0).getId());
+    }
+
+    @Test
+    void compactionMakesDeltaSavesSearchable() {
+        long id = create("apricot").getId();
+        repository.update(id, tag, "apricot and quince");
+        repository.update(id, tag, "quince");
+        SearchRepository search = new SearchRepository();
+        // Between snapshots the full-text index keeps the last snapshot
+        assertFalse(search.search("quince", ItemType.NOTE, "", "", 8, 100).stream()
+                .anyMatch(result -> result.id() == id));
+
+        assertTrue(repository.compact(id));
+        List<SearchRepository.SearchResult> quince = search.search("quince", ItemType.NOTE, "", "", 8, 100);
+        assertTrue(quince.stream().anyMatch(result -> result.id() == id));
+        List<SearchRepository.SearchResult> apricot = search.search("apricot", ItemType.NOTE, "", "", 8, 100);
+        assertFalse(apricot.stream().anyMatch(result -> result.id() == id));
+    }
+
+    @Test
+    void pageCursorSurvivesDeletedAndEditedAnchors() throws InterruptedException {
+        long first = create("first").getId();
+        long second = create("second").getId();
+        long third = create("third").getId();
+
+        List<NoteSummary> top = repository.findSummaryPage(null, 2);
+        assertEquals(List.of(third, second), top.stream().map(NoteSummary::getId).toList());
+        NoteSummary anchor = top.get(1);
+
+        repository.deleteById(second);
+        assertEquals(first, repository.findSummaryPage(anchor, 1).get(0).getId());
+
+        // Editing the last loaded note moves it to the top, not the next page
+        Thread.sleep(2);
+        repository.update(third, tag, "third, edited");
+        assertEquals(first, repository.findSummaryPage(top.get(0), 1).get(0).getId());
+    }
+
+    @Test
+    void compactFoldsDeltasIntoTheRow() throws SQLException {
+        long id = create("a").getId();
+        repository.update(id, tag, "ab");
+        repository.update(id, tag, "abc");
+
+        assertTrue(repository.compact(id));
+        assertEquals("abc", storedContent(id));
+        assertTrue(repository.findRevisions(id).get(0).snapshot());
+        assertFalse(repository.compact(id));
+        assertEquals("abc", repository.findById(id).orElseThrow().getContent());
+    }
+}
@@ -0,0 +1,129 @@
+package com.mnemos.repository;
+
+import com.mnemos.util.DatabaseManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Plans the hot repository queries with EXPLAIN QUERY PLAN, so a dropped
+ * or unusable index fails the build instead of showing up as a slowdown.
+ */
+class QueryPlanTest {
+
+    @BeforeAll
+    static void migrate() {
+        DatabaseManager.initialize();
+    }
+
+    static Stream<Arguments> hotQueries() {
+        List<Arguments> queries = new ArrayList<>(List.of(
+                Arguments.of("TaskRepository.findAll", TaskRepository.SELECT_ALL),
+                Arguments.of("TaskRepository.findPage(first)", TaskRepository.SELECT_FIRST_PAGE),
+                Arguments.of("TaskRepository.findPage(after)", TaskRepository.SELECT_PAGE_AFTER),
+                Arguments.of("TaskRepository.findPage(undated)", TaskRepository.SELECT_UNDATED_PAGE_AFTER),
+                Arguments.of("TaskRepository.findPage(dated)", TaskRepository.SELECT_DATED_PAGE),
+                Arguments.of("TaskRepository.findByTitleContaining", TaskRepository.SELECT_BY_TITLE),
+                Arguments.of("TaskRepository.findEarliestCompletedAt", TaskRepository.SELECT_EARLIEST_COMPLETED),
+                Arguments.of("TaskRepository.deleteCompletedBefore", TaskRepository.DELETE_COMPLETED_BEFORE),
+                Arguments.of("TaskRepository.deleteAllCompletedTasks", TaskRepository.DELETE_ALL_COMPLETED),
+                Arguments.of("TaskRepository.findRemindersBetween", TaskRepository.SELECT_REMINDERS_BETWEEN),
+                Arguments.of("TaskRepository.getPredecessors", TaskRepository.SELECT_PREDECESSORS),
+                Arguments.of("TaskRepository.canStart", TaskRepository.COUNT_UNFINISHED_PREDECESSORS),
+                Arguments.of("NoteRepository.findAll", NoteRepository.SELECT_ALL),
+                Arguments.of("NoteRepository.findPage(first)", NoteRepository.SELECT_FIRST_PAGE),
+                Arguments.of("NoteRepository.findPage(after)", NoteRepository.SELECT_PAGE_AFTER),
+                Arguments.of("NoteRepository.findSummaryPage(first)", NoteRepository.SELECT_FIRST_SUMMARY_PAGE),
+                Arguments.of("NoteRepository.findSummaryPage(after)", NoteRepository.SELECT_SUMMARY_PAGE_AFTER),
+                Arguments.of("NoteRepository.findSummariesByTitleContaining",
+                        NoteRepository.SELECT_SUMMARIES_BY_TITLE),
+                Arguments.of("NoteRepository.findRevisions", NoteRepository.SELECT_REVISIONS),
+                Arguments.of("NoteRepository.findContentAt", NoteRepository.SELECT_CONTENT_AT),
+                Arguments.of("NoteRepository.applyPending", NoteRepository.SELECT_PENDING_REVISIONS),
+                Arguments.of("FileRepository.findAll", FileRepository.SELECT_ALL),
+                Arguments.of("FileRepository.findPage(first)", FileRepository.SELECT_FIRST_PAGE),
+                Arguments.of("FileRepository.findPage(after)", FileRepository.SELECT_PAGE_AFTER),
+                Arguments.of("FileRepository.findByNameContaining", FileRepository.SELECT_BY_NAME),
+                Arguments.of("LinkRepository.getLinksForItem", LinkRepository.SELECT_LINKS_FOR_ITEM),
+                Arguments.of("LinkRepository.findLinkedItems", LinkRepository.SELECT_LINKED_ITEMS),
+                Arguments.of("LinkRepository.isLinked", LinkRepository.COUNT_LINKS_BETWEEN)));
+
+        // Every combination of findByFilter's optional filters
+        for (int mask = 0; mask < 16; mask++) {
+            boolean status = (mask & 1) != 0;
+            boolean priority = (mask & 2) != 0;
+            boolean dueFrom = (mask & 4) != 0;
+            boolean dueTo = (mask & 8) != 0;
+            if (dueFrom && dueTo && !status && !priority) {
+                // A bare date range is read from idx_tasks_due_date and only
+                // the rows inside it are sorted by priority
+                continue;
+            }
+            queries.add(Arguments.of("TaskRepository.findByFilter(status=" + status + ", priority=" + priority
+                    + ", dueFrom=" + dueFrom + ", dueTo=" + dueTo + ")",
+                    TaskRepository.filterSql(status, priority, dueFrom, dueTo)));
+        }
+        return queries.stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void usesIndexes(String name, String sql) throws SQLException {
+        List<String> violations = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect()) {
+            refreshSchema(conn);
+            for (String step : explain(conn, sql)) {
+                if (isViolation(step)) {
+                    violations.add(step);
+                }
+            }
+        }
+        assertEquals(List.of(), violations, name + " scans a table or sorts in a temp b-tree");
+    }
+
+    /**
+     * Uses a plain statement so the plan is never taken from a cached
+     * compiled statement.
+     */
+    private static List<String> explain(Connection conn, String sql) throws SQLException {
+        List<String> steps = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                steps.add(rs.getString("detail"));
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * EXPLAIN does not open a read transaction, so a pooled connection would
+     * plan against the schema it last loaded. Reading sqlite_master makes
+     * SQLite check the schema cookie and reload.
+     */
+    private static void refreshSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master")) {
+            rs.next();
+        }
+    }
+
+    private static boolean isViolation(String step) {
+        // "SCAN t USING INDEX ..." walks an index in order and is fine for full
+        // listings; a full-text MATCH is answered by the FTS5 index
+        boolean tableScan = step.startsWith("SCAN ") && !step.contains(" USING ")
+                && !step.contains(" VIRTUAL TABLE INDEX ");
+        return tableScan || step.contains("USE TEMP B-TREE");
+    }
+}
@@ -0,0 +1,123 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Link;
+import com.mnemos.model.Link.ItemType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinkGraphTest {
+    private final LinkGraph graph = LinkGraph.getInstance();
+
+    @BeforeEach
+    void reset() {
+        graph.load(List.of());
+    }
+
+    private static Link link(long id, ItemType sourceType, long sourceId, ItemType targetType, long targetId) {
+        Link link = new Link(sourceType, sourceId, targetType, targetId);
+        link.setId(id);
+        link.setCreatedAt(1000 + id);
+        return link;
+    }
+
+    @Test
+    void nodeKeysKeepTypeAndId() {
+        long key = LinkGraph.nodeKey(ItemType.FILE, 123_456_789L);
+        assertEquals(ItemType.FILE, LinkGraph.typeOf(key));
+        assertEquals(123_456_789L, LinkGraph.idOf(key));
+        assertFalse(key == LinkGraph.nodeKey(ItemType.NOTE, 123_456_789L));
+    }
+
+    @Test
+    void addAndRemoveKeepLinksInSync() {
+        graph.add(link(1, ItemType.NOTE, 1, ItemType.TASK, 1));
+        graph.add(link(2, ItemType.FILE, 1, ItemType.TASK, 1));
+        // Repeated ids and unsaved links are ignored
+        graph.add(link(1, ItemType.NOTE, 1, ItemType.TASK, 1));
+        graph.add(new Link(ItemType.NOTE, 2L, ItemType.TASK, 1L));
+
+        assertTrue(graph.isLinked(ItemType.TASK, 1, ItemType.NOTE, 1));
+        assertTrue(graph.isLinked(ItemType.NOTE, 1, ItemType.TASK, 1));
+        assertFalse(graph.isLinked(ItemType.NOTE, 2, ItemType.TASK, 1));
+        assertEquals(2, graph.degree(ItemType.TASK, 1));
+        assertEquals(2, graph.linksOf(ItemType.TASK, 1).size());
+
+        Link stored = graph.getLink(2);
+        assertEquals(ItemType.FILE, stored.getSourceType());
+        assertEquals(1L, stored.getTargetId());
+        assertEquals(1002L, stored.getCreatedAt());
+
+        assertTrue(graph.remove(1));
+        assertFalse(graph.remove(1));
+        assertFalse(graph.isLinked(ItemType.NOTE, 1, ItemType.TASK, 1));
+        assertEquals(0, graph.degree(ItemType.NOTE, 1));
+        assertEquals(1, graph.degree(ItemType.TASK, 1));
+        assertNull(graph.getLink(1));
+    }
+
+    @Test
+    void loadReplacesEverything() {
+        graph.add(link(1, ItemType.NOTE, 1, ItemType.TASK, 1));
+        graph.load(List.of(link(5, ItemType.NOTE, 2, ItemType.NOTE, 3)));
+
+        assertTrue(graph.isLoaded());
+        assertNull(graph.getLink(1));
+        assertEquals(0, graph.degree(ItemType.TASK, 1));
+        assertTrue(graph.isLinked(ItemType.NOTE, 2, ItemType.NOTE, 3));
+    }
+
+    @Test
+    void backlinksCountIncomingLinksOnly() {
+        graph.add(link(1, ItemType.NOTE, 1, ItemType.NOTE, 2));
+        graph.add(link(2, ItemType.TASK, 1, ItemType.NOTE, 2));
+        graph.add(link(3, ItemType.NOTE, 2, ItemType.FILE, 1));
+        // A self-link is one link and one backlink
+        graph.add(link(4, ItemType.NOTE, 3, ItemType.NOTE, 3));
+
+        assertEquals(2, graph.backlinkCount(ItemType.NOTE, 2));
+        assertEquals(0, graph.backlinkCount(ItemType.NOTE, 1));
+        assertEquals(1, graph.backlinkCount(ItemType.FILE, 1));
+        assertEquals(1, graph.backlinkCount(ItemType.NOTE, 3));
+        assertEquals(1, graph.degree(ItemType.NOTE, 3));
+
+        graph.remove(2);
+        graph.remove(4);
+        assertEquals(1, graph.backlinkCount(ItemType.NOTE, 2));
+        assertEquals(0, graph.backlinkCount(ItemType.NOTE, 3));
+        assertEquals(0, graph.degree(ItemType.NOTE, 3));
+    }
+
+    @Test
+    void neighborhoodIsBreadthFirstWithinHops() {
+        // note 1 - note 2 - task 1 - file 1, plus a cycle back from file 1 to note 1
+        graph.add(link(1, ItemType.NOTE, 1, ItemType.NOTE, 2));
+        graph.add(link(2, ItemType.TASK, 1, ItemType.NOTE, 2));
+        graph.add(link(3, ItemType.TASK, 1, ItemType.FILE, 1));
+        graph.add(link(4, ItemType.NOTE, 4, ItemType.NOTE, 5));
+
+        assertEquals(List.of(new LinkGraph.Neighbor(ItemType.NOTE, 2, 1)),
+                graph.neighborhood(ItemType.NOTE, 1, 1));
+        assertEquals(List.of(
+                new LinkGraph.Neighbor(ItemType.NOTE, 2, 1),
+                new LinkGraph.Neighbor(ItemType.TASK, 1, 2),
+                new LinkGraph.Neighbor(ItemType.FILE, 1, 3)),
+                graph.neighborhood(ItemType.NOTE, 1, 5));
+
+        graph.add(link(5, ItemType.FILE, 1, ItemType.NOTE, 1));
+        List<LinkGraph.Neighbor> around = graph.neighborhood(ItemType.NOTE, 1, 5);
+        // Each item once, at its shortest distance, never the start itself
+        assertEquals(3, around.size());
+        assertTrue(around.contains(new LinkGraph.Neighbor(ItemType.FILE, 1, 1)));
+        assertTrue(around.contains(new LinkGraph.Neighbor(ItemType.TASK, 1, 2)));
+
+        assertEquals(List.of(), graph.neighborhood(ItemType.NOTE, 1, 0));
+        assertEquals(List.of(), graph.neighborhood(ItemType.NOTE, 99, 2));
+    }
+}
@@ -0,0 +1,121 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Task;
+import com.mnemos.model.Task.RecurrenceType;
+import com.mnemos.model.Task.RecurrenceUnit;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RecurrenceRuleTest {
+
+    private static Task task(LocalDate due, RecurrenceType type) {
+        Task task = new Task("Repeat", Task.Priority.MEDIUM, due);
+        task.setRecurrenceType(type);
+        task.setRecurrenceInterval(1);
+        return task;
+    }
+
+    private static Task custom(LocalDate due, RecurrenceUnit unit, int interval) {
+        Task task = task(due, RecurrenceType.CUSTOM);
+        task.setRecurrenceUnit(unit);
+        task.setRecurrenceInterval(interval);
+        return task;
+    }
+
+    private static List<LocalDate> first(RecurrenceRule rule, int limit) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date : rule) {
+            if (dates.size() == limit) {
+                break;
+            }
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    private static LocalDate date(int year, int month, int day) {
+        return LocalDate.of(year, month, day);
+    }
+
+    @Test
+    void monthEndClampsWithoutDrifting() {
+        RecurrenceRule rule = RecurrenceRule.of(custom(date(2024, 1, 31), RecurrenceUnit.MONTHS, 1));
+
+        assertEquals(List.of(date(2024, 1, 31), date(2024, 2, 29), date(2024, 3, 31), date(2024, 4, 30),
+                date(2024, 5, 31)), first(rule, 5));
+        assertEquals(date(2025, 2, 28), rule.nextAfter(date(2025, 1, 31)));
+        assertEquals(List.of(date(2024, 6, 30), date(2024, 7, 31)),
+                rule.between(date(2024, 6, 1), date(2024, 7, 31)));
+    }
+
+    @Test
+    void countIncludesTheTaskItself() {
+        Task task = task(date(2024, 1, 1), RecurrenceType.DAILY);
+        task.setRecurrenceMaxOccurrences(3);
+        RecurrenceRule rule = RecurrenceRule.of(task);
+
+        assertEquals(List.of(date(2024, 1, 1), date(2024, 1, 2), date(2024, 1, 3)), first(rule, 10));
+        // Starting part-way through still stops at the third date
+        assertEquals(List.of(date(2024, 1, 2), date(2024, 1, 3)),
+                rule.between(date(2024, 1, 2), date(2024, 1, 31)));
+        assertNull(rule.nextAfter(date(2024, 1, 3)));
+    }
+
+    @Test
+    void countAppliesAcrossWeekdays() {
+        // Wednesday 3 January 2024, repeating Monday, Wednesday and Friday
+        Task task = task(date(2024, 1, 3), RecurrenceType.WEEKLY);
+        task.setRecurrenceDays("MON,WED,FRI");
+        task.setRecurrenceMaxOccurrences(4);
+        RecurrenceRule rule = RecurrenceRule.of(task);
+
+        assertEquals(List.of(date(2024, 1, 3), date(2024, 1, 5), date(2024, 1, 8), date(2024, 1, 10)),
+                first(rule, 10));
+        assertEquals(date(2024, 1, 10), rule.nextAfter(date(2024, 1, 8)));
+        assertNull(rule.nextAfter(date(2024, 1, 10)));
+    }
+
+    @Test
+    void untilIsInclusive() {
+        Task task = custom(date(2024, 1, 1), RecurrenceUnit.DAYS, 2);
+        task.setRecurrenceEndDate(date(2024, 1, 7));
+        RecurrenceRule rule = RecurrenceRule.of(task);
+
+        assertEquals(List.of(date(2024, 1, 1), date(2024, 1, 3), date(2024, 1, 5), date(2024, 1, 7)),
+                first(rule, 10));
+        assertNull(rule.nextAfter(date(2024, 1, 7)));
+    }
+
+    @Test
+    void earlierOfCountAndUntilWins() {
+        Task task = custom(date(2024, 1, 31), RecurrenceUnit.MONTHS, 1);
+        task.setRecurrenceEndDate(date(2024, 12, 31));
+        task.setRecurrenceMaxOccurrences(2);
+
+        assertEquals(List.of(date(2024, 1, 31), date(2024, 2, 29)), first(RecurrenceRule.of(task), 10));
+    }
+
+    @Test
+    void biweeklyWeekdaysSkipTheOffWeek() {
+        // Tuesday 2 January 2024, every other week on Tuesday and Thursday
+        Task task = custom(date(2024, 1, 2), RecurrenceUnit.WEEKS, 2);
+        task.setRecurrenceDays("TUE,THU");
+        RecurrenceRule rule = RecurrenceRule.of(task);
+
+        assertEquals(List.of(date(2024, 1, 2), date(2024, 1, 4), date(2024, 1, 16), date(2024, 1, 18)),
+                first(rule, 4));
+        assertEquals(List.of(date(2024, 3, 12), date(2024, 3, 14)),
+                rule.between(date(2024, 3, 5), date(2024, 3, 15)));
+    }
+
+    @Test
+    void nonRecurringTaskHasNoRule() {
+        assertNull(RecurrenceRule.of(task(date(2024, 1, 1), RecurrenceType.NONE)));
+    }
+}
@@ -0,0 +1,165 @@
+package com.mnemos.service;
+
+import com.mnemos.model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskDependencyGraphTest {
+    private final TaskDependencyGraph graph = TaskDependencyGraph.getInstance();
+
+    @BeforeEach
+    void reset() {
+        graph.load(List.of(), List.of());
+    }
+
+    private static Task task(long id, Task.Status status) {
+        return task(id, status, 0);
+    }
+
+    private static Task task(long id, Task.Status status, int pomodoros) {
+        return new Task(id, "Task " + id, Task.Priority.MEDIUM, null, status, pomodoros);
+    }
+
+    @Test
+    void completedPredecessorNewToTheGraphDoesNotBlock() {
+        // Neither task had dependencies at load, so neither is in the graph yet
+        graph.addDependency(task(1, Task.Status.COMPLETED), task(2, Task.Status.PENDING));
+
+        assertFalse(graph.isBlocked(2));
+    }
+
+    @Test
+    void pendingPredecessorBlocksUntilCompleted() {
+        Task first = task(1, Task.Status.PENDING);
+        graph.addDependency(first, task(2, Task.Status.PENDING));
+        assertTrue(graph.isBlocked(2));
+
+        first.setStatus(Task.Status.COMPLETED);
+        assertArrayEquals(new long[] { 2 }, graph.updateTask(first));
+        assertFalse(graph.isBlocked(2));
+    }
+
+    @Test
+    void trackedTaskKeepsItsOwnState() {
+        Task first = task(1, Task.Status.COMPLETED);
+        graph.updateTask(first);
+
+        // A stale copy passed later does not overwrite what the graph knows
+        graph.addDependency(task(1, Task.Status.PENDING), task(2, Task.Status.PENDING));
+
+        assertFalse(graph.isBlocked(2));
+    }
+
+    @Test
+    void rejectsCycles() {
+        graph.addDependency(task(1, Task.Status.PENDING), task(2, Task.Status.PENDING));
+        graph.addDependency(task(2, Task.Status.PENDING), task(3, Task.Status.PENDING));
+
+        assertThrows(IllegalStateException.class,
+                () -> graph.addDependency(task(3, Task.Status.PENDING), task(1, Task.Status.PENDING)));
+        assertFalse(graph.isBlocked(1));
+    }
+
+    @Test
+    void schedulesDiamond() {
+        // 1 (2) -> 2 (3) -> 4 (1), and 1 -> 3 (1) -> 4
+        Task a = task(1, Task.Status.PENDING, 2);
+        Task b = task(2, Task.Status.PENDING, 3);
+        Task c = task(3, Task.Status.PENDING, 1);
+        Task d = task(4, Task.Status.PENDING, 1);
+        graph.addDependency(a, b);
+        graph.addDependency(a, c);
+        graph.addDependency(b, d);
+        graph.addDependency(c, d);
+
+        assertEquals(6, graph.projectLength());
+        assertArrayEquals(new long[] { 1, 2, 4 }, graph.criticalPath());
+        assertEquals(new TaskDependencyGraph.Timing(2, 3, 2, 1), graph.timing(3));
+        assertEquals(3, graph.timing(1).blockedCount());
+        assertNull(graph.timing(5));
+
+        // Finishing the long branch moves the critical path to the short one
+        b.setStatus(Task.Status.COMPLETED);
+        graph.updateTask(b);
+        assertEquals(4, graph.projectLength());
+        assertArrayEquals(new long[] { 1, 3, 4 }, graph.criticalPath());
+        assertEquals(2, graph.timing(1).blockedCount());
+
+        graph.removeDependency(3, 4);
+        assertEquals(0, graph.timing(3).slack());
+        assertEquals(3, graph.projectLength());
+    }
+
+    @Test
+    void criticalPathLeavesOutCompletedTasks() {
+        // Done 1 -> 2 (2): the finished root is not part of the remaining work
+        graph.addDependency(task(1, Task.Status.COMPLETED), task(2, Task.Status.PENDING, 2));
+        assertEquals(2, graph.projectLength());
+        assertArrayEquals(new long[] { 2 }, graph.criticalPath());
+
+        // 3 (1) -> done 4 -> 5 (1): the chain still runs through the finished middle
+        graph.addDependency(task(3, Task.Status.PENDING, 1), task(4, Task.Status.COMPLETED));
+        graph.addDependency(task(4, Task.Status.COMPLETED), task(5, Task.Status.PENDING, 2));
+        assertEquals(3, graph.projectLength());
+        assertArrayEquals(new long[] { 3, 5 }, graph.criticalPath());
+    }
+
+    @Test
+    void incrementalScheduleMatchesFullRecompute() {
+        Random random = new Random(42);
+        int size = 60;
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        for (long id = 1; id <= size; id++) {
+            tasks.put(id, task(id, Task.Status.PENDING, random.nextInt(5)));
+        }
+        List<long[]> edges = new ArrayList<>();
+
+        for (int step = 0; step < 2000; step++) {
+            Task from = tasks.get(1L + random.nextInt(size));
+            Task to = tasks.get(1L + random.nextInt(size));
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    try {
+                        if (from != to && graph.addDependency(from, to)) {
+                            edges.add(new long[] { from.getId(), to.getId() });
+                        }
+                    } catch (IllegalStateException e) {
+                        // Would close a cycle
+                    }
+                }
+                case 2 -> {
+                    if (!edges.isEmpty()) {
+                        long[] edge = edges.remove(random.nextInt(edges.size()));
+                        graph.removeDependency(edge[0], edge[1]);
+                    }
+                }
+                default -> {
+                    from.setPomodoroCount(random.nextInt(5));
+                    from.setStatus(random.nextBoolean() ? Task.Status.COMPLETED : Task.Status.PENDING);
+                    graph.updateTask(from);
+                }
+            }
+        }
+
+        int length = graph.projectLength();
+        Map<Long, TaskDependencyGraph.Timing> incremental = new LinkedHashMap<>();
+        tasks.keySet().forEach(id -> incremental.put(id, graph.timing(id)));
+
+        graph.load(new ArrayList<>(tasks.values()), edges);
+        assertEquals(length, graph.projectLength());
+        tasks.keySet().forEach(id -> assertEquals(graph.timing(id), incremental.get(id), "task " + id));
+    }
+}
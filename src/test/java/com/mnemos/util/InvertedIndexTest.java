@@ -0,0 +1,136 @@
+package com.mnemos.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<Long> keys(InvertedIndex index, String query) {
+        return index.search(query, 100).stream().map(InvertedIndex.Hit::key).toList();
+    }
+
+    @Test
+    void tokensAreFoldedWithoutDiacritics() {
+        assertEquals(List.of("creme", "brulee", "2x"), InvertedIndex.tokenize("Crème BRÛLÉE, 2x!"));
+        assertEquals(List.of(), InvertedIndex.tokenize(null));
+    }
+
+    @Test
+    void everyQueryWordMustPrefixSomeWord() {
+        InvertedIndex index = InvertedIndex.empty();
+        index.put(1, "Grocery list", "apples and pears");
+        index.put(2, "Garden plans", "pear tree by the fence");
+
+        assertEquals(List.of(2L, 1L), keys(index, "pea"));
+        assertEquals(List.of(1L), keys(index, "pear groc"));
+        assertEquals(List.of(), keys(index, "pear plum"));
+        assertEquals(List.of(2L), keys(index, "GARDÉN"));
+    }
+
+    @Test
+    void titleMatchesRankFirstThenNewest() {
+        InvertedIndex index = InvertedIndex.empty();
+        index.put(1, "Meeting notes", null);
+        index.put(2, "Monday", "meeting at ten");
+        index.put(3, "Another meeting", null);
+
+        List<InvertedIndex.Hit> hits = index.search("meeting", 10);
+        assertEquals(List.of(3L, 1L, 2L), hits.stream().map(InvertedIndex.Hit::key).toList());
+        assertEquals(1, hits.get(0).titleMatches());
+        assertEquals(0, hits.get(2).titleMatches());
+        assertEquals("Another meeting", hits.get(0).title());
+        assertEquals(List.of(3L), index.search("meeting", 1).stream().map(InvertedIndex.Hit::key).toList());
+    }
+
+    @Test
+    void replacedAndRemovedDocumentsAreTombstoned() {
+        InvertedIndex index = InvertedIndex.empty();
+        index.put(1, "Draft", "old words");
+        index.put(1, "Draft", "new words");
+        index.put(2, "Scratch", "old words");
+
+        assertEquals(List.of(), keys(index, "new old"));
+        assertEquals(List.of(2L), keys(index, "old"));
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        assertEquals(List.of(), keys(index, "old"));
+        assertEquals(1, index.size());
+        assertEquals(2, index.deletedCount());
+    }
+
+    @Test
+    void snapshotRoundTripKeepsDocumentsAndTakesNewOnes() throws IOException {
+        InvertedIndex index = InvertedIndex.empty();
+        // Enough documents that posting gaps and numbers need multi-byte varints
+        for (long key = 0; key < 1000; key++) {
+            index.put(key, "Note " + key, key % 7 == 0 ? "weekly review" : "daily log");
+        }
+        index.put(5, "Note 5", "weekly review");
+        index.remove(14);
+        Path snapshot = dir.resolve("index.idx");
+        index.write(snapshot);
+
+        InvertedIndex opened = InvertedIndex.open(snapshot);
+        assertEquals(999, opened.size());
+        assertEquals(0, opened.deletedCount());
+        assertEquals(keys(index, "weekly"), keys(opened, "weekly"));
+        assertEquals(List.of(999L), keys(opened, "note 999"));
+        assertFalse(opened.contains(14));
+
+        // Changes on top of the mapped base segment
+        opened.put(7, "Note 7", "daily log");
+        opened.put(2000, "Fresh", "weekly review");
+        assertEquals(1, opened.deletedCount());
+        List<Long> weekly = keys(opened, "weekly");
+        assertEquals(2000L, weekly.get(0));
+        assertFalse(weekly.contains(7L));
+        assertTrue(keys(opened, "daily").contains(7L));
+
+        Path again = dir.resolve("again.idx");
+        opened.write(again);
+        assertEquals(keys(opened, "weekly"), keys(InvertedIndex.open(again), "weekly"));
+    }
+
+    @Test
+    void compactionDropsTombstonesAndKeepsResults() throws IOException {
+        InvertedIndex index = InvertedIndex.empty();
+        for (long key = 0; key < 300; key++) {
+            index.put(key, "Task " + key, null);
+        }
+        Path snapshot = dir.resolve("index.idx");
+        index.write(snapshot);
+        InvertedIndex opened = InvertedIndex.open(snapshot);
+        for (long key = 0; key < 300; key += 2) {
+            opened.put(key, "Task " + key + " done", null);
+        }
+        List<Long> done = keys(opened, "done");
+
+        InvertedIndex compacted = opened.compacted();
+        assertEquals(0, compacted.deletedCount());
+        assertEquals(300, compacted.size());
+        assertEquals(done, keys(compacted, "done"));
+        assertEquals(keys(opened, "task"), keys(compacted, "task"));
+        assertEquals(List.of(299L), keys(compacted, "task 299"));
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws IOException {
+        Path snapshot = dir.resolve("corrupt.idx");
+        Files.write(snapshot, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+
+        assertThrows(IOException.class, () -> InvertedIndex.open(snapshot));
+    }
+}
@@ -0,0 +1,121 @@
+package com.mnemos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashMapTest {
+
+    // Home slot as LongHashMap computes it, to build probe runs on purpose
+    private static int home(long key, int capacity) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+
+    private static List<Long> keysWithHome(int slot, int capacity, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 0; keys.size() < count; key++) {
+            if (home(key, capacity) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    void putGetReplaceRemove() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(-1, "minus one"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertEquals("one", map.put(1, "uno"));
+
+        assertEquals(3, map.size());
+        assertEquals("uno", map.get(1));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(2));
+        assertEquals("minus one", map.remove(-1));
+        assertNull(map.remove(-1));
+        assertFalse(map.containsKey(-1));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test
+    void nullValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHashMap<String>().put(1, null));
+    }
+
+    @Test
+    void removalShiftsBackAcrossTheWraparound() {
+        // Capacity 16 holds up to 8 entries without resizing
+        LongHashMap<Long> map = new LongHashMap<>();
+        // A run homed at the last slot spills over into slots 0 and 1
+        List<Long> wrapped = keysWithHome(15, 16, 3);
+        // An entry homed at slot 1 is pushed to slot 2 behind them
+        long behind = keysWithHome(1, 16, 1).get(0);
+        for (long key : wrapped) {
+            map.put(key, key);
+        }
+        map.put(behind, behind);
+
+        // Emptying slot 15 must pull the wrapped entries back, and the one homed at 1 with them
+        assertEquals(wrapped.get(0), map.remove(wrapped.get(0)));
+        assertEquals(wrapped.get(1), map.get(wrapped.get(1)));
+        assertEquals(wrapped.get(2), map.get(wrapped.get(2)));
+        assertEquals(behind, map.get(behind));
+
+        assertEquals(wrapped.get(1), map.remove(wrapped.get(1)));
+        assertEquals(wrapped.get(2), map.get(wrapped.get(2)));
+        assertEquals(behind, map.get(behind));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void resizeKeepsEveryEntry() {
+        LongHashMap<Long> map = new LongHashMap<>();
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 31, key);
+        }
+        assertEquals(10_000, map.size());
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(key, map.get(key * 31));
+        }
+        long[] sum = new long[1];
+        map.forEach((key, value) -> sum[0] += value);
+        assertEquals(10_000L * 9_999 / 2, sum[0]);
+    }
+
+    @Test
+    void randomOperationsMatchHashMap() {
+        Random random = new Random(7);
+        LongHashMap<Integer> map = new LongHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        // Few distinct keys, so runs collide, wrap and get removed often
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(64);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "remove at " + i);
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i), "put at " + i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = 0; key < 64; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
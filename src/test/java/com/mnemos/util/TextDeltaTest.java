@@ -0,0 +1,77 @@
+package com.mnemos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TextDeltaTest {
+
+    @Test
+    void typicalEditKeepsPrefixAndSuffix() {
+        String delta = TextDelta.diff("Hello world", "Hello brave new world");
+
+        assertEquals("=6+10:brave new ", delta);
+        assertEquals("Hello brave new world", TextDelta.apply("Hello world", delta));
+    }
+
+    @Test
+    void deletionAndReplacement() {
+        assertEquals("=5-6", TextDelta.diff("Hello world", "Hello"));
+        assertEquals("=2-2+2:ip", TextDelta.diff("chalk", "chipk"));
+        assertEquals("chipk", TextDelta.apply("chalk", "=2-2+2:ip"));
+    }
+
+    @Test
+    void unchangedTextIsKeptWhole() {
+        assertEquals("=4", TextDelta.diff("same", "same"));
+        assertEquals("", TextDelta.diff("", ""));
+        // Text after the last op is kept
+        assertEquals("same", TextDelta.apply("same", ""));
+    }
+
+    @Test
+    void insertedTextMayContainOpCharacters() {
+        String to = "a=1-2+3:b\nc";
+        assertEquals(to, TextDelta.apply("ac", TextDelta.diff("ac", to)));
+    }
+
+    @Test
+    void surrogatePairIsNeverSplit() {
+        // Both differ only in the low surrogate of the emoji
+        String from = "x😀y";
+        String to = "x😁y";
+        String delta = TextDelta.diff(from, to);
+
+        assertEquals("=1-2+2:😁", delta);
+        assertEquals(to, TextDelta.apply(from, delta));
+    }
+
+    @Test
+    void randomEditsRoundTrip() {
+        Random random = new Random(42);
+        String text = "";
+        for (int i = 0; i < 500; i++) {
+            StringBuilder next = new StringBuilder(text);
+            int at = random.nextInt(text.length() + 1);
+            int removed = random.nextInt(Math.min(5, text.length() - at) + 1);
+            next.delete(at, at + removed);
+            for (int c = random.nextInt(6); c > 0; c--) {
+                next.insert(at, "ab=+-:1\n".charAt(random.nextInt(8)));
+            }
+            String delta = TextDelta.diff(text, next.toString());
+            assertEquals(next.toString(), TextDelta.apply(text, delta), "step " + i);
+            text = next.toString();
+        }
+    }
+
+    @Test
+    void malformedDeltaIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TextDelta.apply("abc", "=5"));
+        assertThrows(IllegalArgumentException.class, () -> TextDelta.apply("abc", "-"));
+        assertThrows(IllegalArgumentException.class, () -> TextDelta.apply("abc", "+4:ab"));
+        assertThrows(IllegalArgumentException.class, () -> TextDelta.apply("abc", "*1"));
+    }
+}
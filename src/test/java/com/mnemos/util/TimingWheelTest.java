@@ -0,0 +1,107 @@
+package com.mnemos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    private static final long TICK = 1000;
+    private static final long START = 1_700_000_000_000L;
+
+    // 8 slots of a second each: one revolution is 8 seconds
+    private final TimingWheel wheel = new TimingWheel(TICK, 8, START);
+
+    private static long[] sorted(long[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Test
+    void entryStaysInItsSlotUntilTheRevolutionItIsDue() {
+        wheel.schedule(1, START + 20_000);
+
+        // Its slot comes round at 4 s and 12 s without it being due
+        for (long t = START + TICK; t < START + 20_000; t += TICK) {
+            assertArrayEquals(new long[0], wheel.advance(t), "at +" + (t - START));
+        }
+        assertArrayEquals(new long[] { 1 }, wheel.advance(START + 20_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void jumpOfSeveralRevolutionsFiresEverythingDue() {
+        wheel.schedule(1, START + 3_000);
+        wheel.schedule(2, START + 11_500);
+        wheel.schedule(3, START + 30_000);
+
+        assertArrayEquals(new long[] { 1, 2 }, sorted(wheel.advance(START + 25_000)));
+        assertTrue(wheel.contains(3));
+        assertArrayEquals(new long[] { 3 }, wheel.advance(START + 30_000));
+    }
+
+    @Test
+    void deadlineWithinTickFiresOnceReached() {
+        wheel.schedule(1, START + 1_500);
+
+        assertArrayEquals(new long[0], wheel.advance(START + 1_999));
+        assertArrayEquals(new long[] { 1 }, wheel.advance(START + 2_000));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        wheel.schedule(1, START - 60_000);
+
+        assertArrayEquals(new long[0], wheel.advance(START + 999));
+        assertArrayEquals(new long[] { 1 }, wheel.advance(START + 1_000));
+    }
+
+    @Test
+    void rescheduleReplacesAndCancelRemoves() {
+        wheel.schedule(1, START + 2_000);
+        wheel.schedule(1, START + 5_000);
+        wheel.schedule(2, START + 2_000);
+        assertTrue(wheel.cancel(2));
+        assertFalse(wheel.cancel(2));
+
+        assertArrayEquals(new long[0], wheel.advance(START + 4_000));
+        assertArrayEquals(new long[] { 1 }, wheel.advance(START + 5_000));
+    }
+
+    @Test
+    void growsAndReusesFreedEntries() {
+        for (long id = 0; id < 500; id++) {
+            wheel.schedule(id, START + 1_000 + id * 100);
+        }
+        assertEquals(500, wheel.size());
+
+        long[] due = wheel.advance(START + 50_999);
+        assertEquals(500, due.length);
+        assertEquals(0, wheel.size());
+
+        // Freed entries are handed out again
+        wheel.schedule(7, START + 52_000);
+        assertArrayEquals(new long[] { 7 }, wheel.advance(START + 52_000));
+    }
+
+    @Test
+    void idLookupSurvivesRehashAndCancelsWithinChains() {
+        // Spread-out ids, well past the initial bucket count
+        for (long i = 0; i < 2_000; i++) {
+            wheel.schedule(i * 1_000_003L, START + 10_000);
+        }
+        for (long i = 0; i < 2_000; i += 3) {
+            assertTrue(wheel.cancel(i * 1_000_003L));
+        }
+        assertEquals(1_333, wheel.size());
+        for (long i = 0; i < 2_000; i++) {
+            assertEquals(i % 3 != 0, wheel.contains(i * 1_000_003L), "id " + i);
+        }
+        assertEquals(1_333, wheel.advance(START + 10_000).length);
+        assertFalse(wheel.contains(1_000_003L));
+    }
+}